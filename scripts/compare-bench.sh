@@ -0,0 +1,55 @@
+#!/bin/bash
+
+# Compares two JMH JSON result files, e.g. from `mvn -Pbench package exec:exec` on two commits:
+#   ./scripts/compare-bench.sh baseline.json target/jmh-result.json
+# Prints every benchmark and secondary metric (including latency percentiles) with its change.
+
+if [ "$#" -ne 2 ]; then
+    echo "Usage: $0 <baseline.json> <candidate.json>"
+    exit 1
+fi
+
+for file in "$1" "$2"; do
+    if [ ! -f "$file" ]; then
+        echo "Error: result file not found: $file" >&2
+        exit 1
+    fi
+done
+
+python3 - "$1" "$2" <<'EOF'
+import json
+import sys
+
+
+def load(path):
+    rows = {}
+    with open(path) as f:
+        for result in json.load(f):
+            params = ",".join(f"{k}={v}" for k, v in sorted(result.get("params", {}).items()))
+            name = result["benchmark"].rsplit(".", 2)
+            name = ".".join(name[-2:])
+            primary = result["primaryMetric"]
+            unit = primary["scoreUnit"]
+            rows[(name, params)] = (primary["score"], unit)
+            for pct, value in primary.get("scorePercentiles", {}).items():
+                if result["mode"] == "sample" and pct in ("50.0", "90.0", "99.0", "99.9"):
+                    rows[(name + ":p" + pct.rstrip("0").rstrip("."), params)] = (value, unit)
+            for metric, secondary in result.get("secondaryMetrics", {}).items():
+                if not metric.startswith("p"):
+                    rows[(name + ":" + metric, params)] = (secondary["score"], secondary["scoreUnit"])
+    return rows
+
+
+baseline = load(sys.argv[1])
+candidate = load(sys.argv[2])
+print(f"{'Benchmark':<40} {'Params':<50} {'Baseline':>14} {'Candidate':>14} {'Change':>9}  Unit")
+for key in sorted(baseline.keys() | candidate.keys()):
+    name, params = key
+    base = baseline.get(key)
+    cand = candidate.get(key)
+    unit = (base or cand)[1]
+    base_text = f"{base[0]:.3f}" if base else "-"
+    cand_text = f"{cand[0]:.3f}" if cand else "-"
+    change = f"{(cand[0] - base[0]) / base[0] * 100:+.1f}%" if base and cand and base[0] else ""
+    print(f"{name:<40} {params:<50} {base_text:>14} {cand_text:>14} {change:>9}  {unit}")
+EOF
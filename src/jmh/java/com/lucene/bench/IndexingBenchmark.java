@@ -0,0 +1,118 @@
+package com.lucene.bench;
+
+import com.lucene.indexer.Indexer;
+import com.lucene.indexer.ScratchDirectory;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Indexing throughput into a scratch index, on the heap or memory-mapped as chosen by {@code storage}. {@code indexFile} scores are documents per
+ * second; {@code indexDirectory} scores are runs per second, with documents per second
+ * reported as its secondary {@code documents} metric.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class IndexingBenchmark {
+
+    @Param({"1000"})
+    public int files;
+
+    @Param({"500"})
+    public int wordsPerFile;
+
+    @Param({"txt:6,java:2,md:1,docx:1"})
+    public String fileMix;
+
+    /**
+     * {@code heap} uses a {@link ByteBuffersDirectory}, {@code scratch} a {@link ScratchDirectory}.
+     */
+    @Param({"heap"})
+    public String storage;
+
+    private Path corpus;
+    private List<Path> corpusFiles;
+    private Directory directory;
+    private Indexer indexer;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void createCorpus() throws IOException {
+        corpus = SyntheticCorpus.generate(files, wordsPerFile, fileMix, 42);
+        try (Stream<Path> paths = Files.walk(corpus)) {
+            corpusFiles = paths.filter(Files::isRegularFile).sorted().toList();
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void openIndex() throws IOException {
+        directory = "scratch".equals(storage) ? ScratchDirectory.create() : new ByteBuffersDirectory();
+        indexer = new Indexer(directory);
+        next = 0;
+    }
+
+    @TearDown(Level.Iteration)
+    public void closeIndex() throws IOException {
+        indexer.close();
+        directory.close();
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteCorpus() throws IOException {
+        SyntheticCorpus.delete(corpus);
+    }
+
+    /**
+     * Single-file adds through {@link Indexer#indexFile}, cycling over the corpus so later
+     * rounds exercise updates as well as adds.
+     */
+    @Benchmark
+    public void indexFile() throws IOException {
+        indexer.indexFile(corpusFiles.get(next));
+        next = (next + 1) % corpusFiles.size();
+    }
+
+    /**
+     * A full {@link Indexer#indexDirectory} run through the parallel pipeline, including its final commit.
+     */
+    @Benchmark
+    public void indexDirectory(DocumentCounter counter) throws IOException {
+        counter.documents += indexer.indexDirectory(corpus.toString(), "all").getFilesIndexed();
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class DocumentCounter {
+
+        public long documents;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            documents = 0;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.lucene.bench;
+
+import com.lucene.indexer.Indexer;
+import com.lucene.model.WatchResult;
+import com.lucene.searcher.Searcher;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Query latency against a committed in-memory index. Runs in sample mode, so the JSON
+ * results carry the p50, p90, p99 and p99.9 latencies as score percentiles.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class SearchBenchmark {
+
+    @Param({"5000"})
+    public int files;
+
+    @Param({"300"})
+    public int wordsPerFile;
+
+    @Param({"txt:8,java:1,md:1"})
+    public String fileMix;
+
+    /**
+     * {@code term}: one word; {@code or}: two words; {@code phrase}: a two-word phrase.
+     */
+    @Param({"term", "or", "phrase"})
+    public String queryType;
+
+    @Param({"100"})
+    public int maxResults;
+
+    /**
+     * Threads for intra-query concurrency; {@code default} uses the number of cores, 1 searches sequentially.
+     */
+    @Param({"default"})
+    public String searchThreads;
+
+    private ByteBuffersDirectory directory;
+    private Searcher searcher;
+    private String[] queries;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void buildIndex() throws Exception {
+        if (!"default".equals(searchThreads)) {
+            System.setProperty("lucid.search.threads", searchThreads);
+        }
+        Path corpus = SyntheticCorpus.generate(files, wordsPerFile, fileMix, 42);
+        directory = new ByteBuffersDirectory();
+        try {
+            Indexer indexer = new Indexer(directory);
+            indexer.indexDirectory(corpus.toString(), "all");
+            indexer.close();
+        } finally {
+            SyntheticCorpus.delete(corpus);
+        }
+        searcher = new Searcher(directory);
+        Random random = new Random(7);
+        queries = new String[1024];
+        for (int i = 0; i < queries.length; i++) {
+            queries[i] = query(random);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void close() throws Exception {
+        searcher.close();
+        directory.close();
+    }
+
+    @Benchmark
+    public List<WatchResult> search() throws Exception {
+        String query = queries[next];
+        next = (next + 1) % queries.length;
+        return searcher.search(query, maxResults);
+    }
+
+    private String query(Random random) {
+        String first = SyntheticCorpus.word(random);
+        String second = SyntheticCorpus.word(random);
+        return switch (queryType) {
+            case "or" -> first + " " + second;
+            case "phrase" -> "\"" + first + " " + second + "\"";
+            default -> first;
+        };
+    }
+}
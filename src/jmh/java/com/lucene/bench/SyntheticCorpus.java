@@ -0,0 +1,110 @@
+package com.lucene.bench;
+
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Generates a reproducible corpus of files in a temp directory for the benchmarks.
+ * The file-type mix is given as weighted extensions, e.g. {@code "txt:6,java:2,md:1,docx:1"};
+ * words are drawn from a fixed vocabulary with a skewed distribution so that some query
+ * terms are common and others rare, as in real text.
+ */
+public final class SyntheticCorpus {
+
+    /**
+     * Query terms ordered from most to least frequent in generated text.
+     */
+    public static final String[] VOCABULARY = {
+            "index", "search", "lucene", "file", "query", "score", "document", "segment", "merge",
+            "commit", "reader", "writer", "analyzer", "token", "field", "term", "posting", "vector",
+            "shard", "replica", "cache", "latency", "throughput", "buffer", "directory", "watcher",
+            "snapshot", "histogram", "benchmark", "corpus", "zeppelin", "quasar", "nebula", "fjord"
+    };
+    private static final int FILES_PER_DIRECTORY = 100;
+
+    private SyntheticCorpus() {
+        // Prevent instantiation
+    }
+
+    /**
+     * Writes {@code fileCount} files of about {@code wordsPerFile} words under a new temp directory,
+     * spread over subdirectories of {@value #FILES_PER_DIRECTORY} files each.
+     */
+    public static Path generate(int fileCount, int wordsPerFile, String fileMix, long seed) throws IOException {
+        Path root = Files.createTempDirectory("lucid-bench-");
+        List<String> extensions = parseMix(fileMix);
+        Random random = new Random(seed);
+        for (int i = 0; i < fileCount; i++) {
+            Path dir = root.resolve("d" + (i / FILES_PER_DIRECTORY));
+            Files.createDirectories(dir);
+            String extension = extensions.get(random.nextInt(extensions.size()));
+            writeFile(dir.resolve("f" + i + "." + extension), text(random, wordsPerFile));
+        }
+        return root;
+    }
+
+    public static String text(Random random, int words) {
+        StringBuilder sb = new StringBuilder(words * 8);
+        for (int i = 0; i < words; i++) {
+            sb.append(word(random)).append(i % 12 == 11 ? '\n' : ' ');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Picks a vocabulary word, favouring words near the start of the list.
+     */
+    public static String word(Random random) {
+        double u = random.nextDouble();
+        return VOCABULARY[(int) (u * u * u * VOCABULARY.length)];
+    }
+
+    public static void writeFile(Path file, String text) throws IOException {
+        if (file.getFileName().toString().endsWith(".docx")) {
+            try (XWPFDocument document = new XWPFDocument(); OutputStream out = Files.newOutputStream(file)) {
+                for (String line : text.split("\n")) {
+                    document.createParagraph().createRun().setText(line);
+                }
+                document.write(out);
+            }
+        } else {
+            Files.writeString(file, text, StandardCharsets.UTF_8);
+        }
+    }
+
+    public static void delete(Path root) throws IOException {
+        if (root == null || !Files.exists(root)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    private static List<String> parseMix(String fileMix) {
+        List<String> extensions = new ArrayList<>();
+        for (String part : fileMix.split(",")) {
+            String[] pair = part.trim().split(":");
+            int weight = pair.length > 1 ? Integer.parseInt(pair[1]) : 1;
+            for (int i = 0; i < weight; i++) {
+                extensions.add(pair[0]);
+            }
+        }
+        if (extensions.isEmpty()) {
+            throw new IllegalArgumentException("Empty file mix: " + fileMix);
+        }
+        return extensions;
+    }
+}
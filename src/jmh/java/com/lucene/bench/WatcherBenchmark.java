@@ -0,0 +1,168 @@
+package com.lucene.bench;
+
+import com.lucene.model.WatchResult;
+import com.lucene.watcher.ChangeCoalescer;
+import com.lucene.watcher.ChangeWatcher;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Watcher event throughput, in events per second.
+ * <ul>
+ *     <li>{@code coalesce}: raw {@link ChangeCoalescer#add} rate over a working set of paths.</li>
+ *     <li>{@code watchFiles}: end to end, from writing a burst of files to receiving their
+ *     coalesced changes from a running {@link ChangeWatcher}. Scores are bursts per second;
+ *     events per second are reported as the secondary {@code events} metric.</li>
+ * </ul>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class WatcherBenchmark {
+
+    private static final long DELIVERY_TIMEOUT_SECONDS = 10;
+    private static final WatchEvent.Kind<?>[] KINDS = {
+            StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY,
+            StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE
+    };
+
+    @State(Scope.Benchmark)
+    public static class CoalescerState {
+
+        @Param({"10000"})
+        public int paths;
+
+        private ChangeCoalescer coalescer;
+        private Path[] pathPool;
+        private int next;
+
+        @Setup(Level.Trial)
+        public void open() {
+            coalescer = new ChangeCoalescer(ChangeCoalescer.DEFAULT_QUIET_PERIOD, batch -> { });
+            pathPool = new Path[paths];
+            for (int i = 0; i < paths; i++) {
+                pathPool[i] = Paths.get("/bench/d" + (i % 64), "f" + i + ".txt");
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void close() {
+            coalescer.close();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class WatcherState {
+
+        @Param({"200"})
+        public int burst;
+
+        private final AtomicLong delivered = new AtomicLong();
+        private Path root;
+        private ChangeWatcher watcher;
+        private Thread watcherThread;
+        private int round;
+
+        @Setup(Level.Trial)
+        public void start() throws Exception {
+            root = Files.createTempDirectory("lucid-bench-watch-");
+            watcher = new ChangeWatcher(root.toString(), this::onBatch, Duration.ofMillis(20), Runnable::run);
+            watcherThread = new Thread(watcher, "BenchWatcherThread");
+            watcherThread.setDaemon(true);
+            watcherThread.start();
+        }
+
+        /**
+         * Removes the files written during the iteration and lets their deletes drain, so the
+         * directory stays small and stray events never count towards the next burst.
+         */
+        @TearDown(Level.Iteration)
+        public void clean() throws Exception {
+            try (Stream<Path> files = Files.list(root)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    Files.deleteIfExists(file);
+                }
+            }
+            Thread.sleep(500);
+        }
+
+        @TearDown(Level.Trial)
+        public void stop() throws Exception {
+            watcher.stop();
+            watcherThread.join(1000);
+            SyntheticCorpus.delete(root);
+        }
+
+        private void onBatch(List<WatchResult> batch) {
+            delivered.addAndGet(batch.size());
+        }
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class EventCounter {
+
+        public long events;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            events = 0;
+        }
+    }
+
+    @Benchmark
+    public void coalesce(CoalescerState state) {
+        int i = state.next;
+        state.coalescer.add(KINDS[i & 3], state.pathPool[i]);
+        state.next = i + 1 == state.pathPool.length ? 0 : i + 1;
+    }
+
+    /**
+     * Writes {@code burst} new files and waits until the watcher has delivered all of them. Fails the
+     * iteration if they are not delivered within the deadline, since its time would not measure a full burst.
+     */
+    @Benchmark
+    public void watchFiles(WatcherState state, EventCounter counter) throws Exception {
+        long target = state.delivered.get() + state.burst;
+        int round = state.round++;
+        for (int i = 0; i < state.burst; i++) {
+            Files.writeString(state.root.resolve("r" + round + "-" + i + ".txt"), "x", StandardCharsets.UTF_8);
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(DELIVERY_TIMEOUT_SECONDS);
+        while (state.delivered.get() < target && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        long missing = target - state.delivered.get();
+        if (missing > 0) {
+            throw new IllegalStateException("Watcher delivered " + (state.burst - missing) + " of " + state.burst
+                    + " events within " + DELIVERY_TIMEOUT_SECONDS + " s");
+        }
+        counter.events += state.burst;
+    }
+}
@@ -1,12 +1,24 @@
 package com.lucene;
 
 
+import com.lucene.server.SearchServer;
 import com.lucene.ui.LucidApp;
 import javafx.application.Application;
 
+import java.util.Arrays;
+
 public class LucidSearchApp {
 
-    public static void main(String[] args) {
+    /**
+     * Runs the headless {@link SearchServer} instead of the GUI; the remaining arguments go to the server.
+     */
+    public static final String SERVER_FLAG = "--server";
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && SERVER_FLAG.equals(args[0])) {
+            SearchServer.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
         Application.launch(LucidApp.class, args);
     }
 }
@@ -0,0 +1,384 @@
+package com.lucene;
+
+import com.lucene.indexer.IndexProfile;
+import com.lucene.indexer.IndexSettings;
+import com.lucene.indexer.Indexer;
+import com.lucene.indexer.IndexingListener;
+import com.lucene.indexer.ShardedIndexer;
+import com.lucene.metrics.LatencyHistogram;
+import com.lucene.metrics.Metric;
+import com.lucene.metrics.Metrics;
+import com.lucene.model.IndexingSummary;
+import com.lucene.model.WatchResult;
+import com.lucene.searcher.SearchFilter;
+import com.lucene.searcher.SearchPage;
+import com.lucene.searcher.SearchSort;
+import com.lucene.searcher.Searcher;
+import com.lucene.searcher.SnippetMode;
+import com.lucene.util.Constants;
+import com.lucene.util.FileUtil;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.SegmentInfos;
+import org.apache.lucene.queryparser.classic.ParseException;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Command-line entry point for scripted indexing and querying without the GUI. Results go to
+ * stdout; progress and logs go to stderr.
+ * <pre>
+ * index   &lt;dir&gt; [--type T] [--profile P] [--shards N] [--quiet]   index new and changed files
+ * reindex &lt;dir&gt; [--type T] [--profile P] [--shards N] [--quiet]   rebuild the index from scratch
+ * search  &lt;query&gt; &lt;dir&gt;... [--size N] [--snippets none|preview|highlight]
+ *         [--ext java,md] [--under DIR] [--days N] [--sort relevance|newest|oldest|largest|smallest]
+ * stats   &lt;dir&gt;...
+ * </pre>
+ * Exit codes: {@value #EXIT_OK} success, {@value #EXIT_ERROR} failure, {@value #EXIT_USAGE} bad arguments,
+ * {@value #EXIT_PARTIAL} indexing finished but some files failed, {@value #EXIT_NOT_INDEXED} a
+ * directory has no index.
+ */
+public class LucidSearchCli {
+
+    public static final int EXIT_OK = 0;
+    public static final int EXIT_ERROR = 1;
+    public static final int EXIT_USAGE = 2;
+    public static final int EXIT_PARTIAL = 3;
+    public static final int EXIT_NOT_INDEXED = 4;
+    private static final long PROGRESS_INTERVAL_MILLIS = 1000;
+    private static final double MB = 1024.0 * 1024.0;
+    private static final String USAGE = """
+            Usage: LucidSearchCli <command> [options]
+              index   <dir> [--type T] [--profile P] [--shards N] [--quiet]   Index new and changed files
+              reindex <dir> [--type T] [--profile P] [--shards N] [--quiet]   Rebuild the index from scratch
+              search  <query> <dir>... [--size N] [--snippets none|preview|highlight]
+                      [--ext java,md] [--under DIR] [--days N] [--sort relevance|newest|oldest|largest|smallest]
+                      An empty <query> ("") lists every file matching the filters
+                      A relative --under DIR is resolved against the searched <dir>
+              stats   <dir>...""";
+
+    private final PrintStream out;
+    private final PrintStream err;
+
+    LucidSearchCli(PrintStream out, PrintStream err) {
+        this.out = out;
+        this.err = err;
+    }
+
+    public static void main(String[] args) {
+        System.exit(new LucidSearchCli(System.out, System.err).run(args));
+    }
+
+    int run(String[] args) {
+        if (args.length == 0) {
+            err.println(USAGE);
+            return EXIT_USAGE;
+        }
+        try {
+            Arguments arguments = Arguments.parse(Arrays.copyOfRange(args, 1, args.length));
+            return switch (args[0]) {
+                case "index" -> index(arguments, false);
+                case "reindex" -> index(arguments, true);
+                case "search" -> search(arguments);
+                case "stats" -> stats(arguments);
+                default -> throw new IllegalArgumentException("Unknown command: " + args[0]);
+            };
+        } catch (IllegalArgumentException e) {
+            err.println(e.getMessage());
+            err.println(USAGE);
+            return EXIT_USAGE;
+        } catch (ParseException e) {
+            err.println("Invalid query: " + e.getMessage());
+            return EXIT_USAGE;
+        } catch (Exception e) {
+            err.println("Failed: " + e.getMessage());
+            return EXIT_ERROR;
+        }
+    }
+
+    private int index(Arguments arguments, boolean rebuild) throws Exception {
+        String directoryPath = normalize(arguments.single("directory"));
+        if (!FileUtil.isValidDirectory(directoryPath)) {
+            throw new IllegalArgumentException("Not a directory: " + directoryPath);
+        }
+        String fileType = arguments.option("type", "all");
+        if (!Constants.FILE_TYPES_SET.contains(fileType)) {
+            throw new IllegalArgumentException("Unsupported file type: " + fileType);
+        }
+        IndexSettings settings = IndexSettings.load(directoryPath);
+        IndexProfile profile = arguments.has("profile")
+                ? IndexProfile.fromName(arguments.option("profile", null))
+                : settings.getProfile();
+        int shardCount = arguments.intOption("shards", settings.getShardCount());
+
+        AtomicLong processed = new AtomicLong();
+        AtomicLong discovered = new AtomicLong();
+        IndexingListener progress = (done, found) -> {
+            processed.set(done);
+            discovered.set(found);
+        };
+        Thread reporter = arguments.has("quiet") ? null
+                : Thread.ofVirtual().name("IndexProgress").start(() -> reportProgress(processed, discovered));
+        LatencyHistogram.Snapshot commitsBefore = Metrics.snapshot().getLatency(Metric.COMMIT);
+        IndexingSummary summary;
+        try {
+            if (shardCount > 1) {
+                ShardedIndexer indexer = new ShardedIndexer(directoryPath, profile, shardCount,
+                        settings.getShardRouting());
+                try {
+                    if (rebuild) {
+                        indexer.deleteAll();
+                    }
+                    summary = indexer.indexDirectory(directoryPath, fileType, progress);
+                } finally {
+                    indexer.close();
+                }
+            } else {
+                Indexer indexer = new Indexer(directoryPath, profile);
+                try {
+                    if (rebuild) {
+                        indexer.deleteAll();
+                    }
+                    summary = indexer.indexDirectory(directoryPath, fileType, progress);
+                } finally {
+                    indexer.close();
+                }
+            }
+        } finally {
+            if (reporter != null) {
+                reporter.interrupt();
+                reporter.join();
+            }
+        }
+        LatencyHistogram.Snapshot commitsAfter = Metrics.snapshot().getLatency(Metric.COMMIT);
+        long commitNanos = commitsAfter.getTotalNanos() - commitsBefore.getTotalNanos();
+        long commitCount = commitsAfter.getCount() - commitsBefore.getCount();
+
+        double seconds = Math.max(summary.getElapsedMillis(), 1) / 1000.0;
+        long filesProcessed = summary.getFilesIndexed() + summary.getFilesSkipped() + summary.getFilesFailed();
+        out.println((rebuild ? "Reindexed " : "Indexed ") + directoryPath + " (" + profile.getName()
+                + (shardCount > 1 ? ", " + shardCount + " shards" : "") + ")");
+        out.printf(Locale.ROOT, "  files:      %d indexed, %d unchanged, %d deleted, %d failed%n",
+                summary.getFilesIndexed(), summary.getFilesSkipped(), summary.getFilesDeleted(),
+                summary.getFilesFailed());
+        out.printf(Locale.ROOT, "  throughput: %.1f files/s, %.2f MB/s (%.2f MB in %.2f s)%n",
+                filesProcessed / seconds, summary.getBytesIndexed() / MB / seconds,
+                summary.getBytesIndexed() / MB, seconds);
+        out.printf(Locale.ROOT, "  commits:    %d in %.1f ms%n", commitCount, commitNanos / 1_000_000.0);
+        return summary.getFilesFailed() > 0 ? EXIT_PARTIAL : EXIT_OK;
+    }
+
+    private void reportProgress(AtomicLong processed, AtomicLong discovered) {
+        long start = System.nanoTime();
+        long lastProcessed = 0;
+        while (true) {
+            try {
+                Thread.sleep(PROGRESS_INTERVAL_MILLIS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            long done = processed.get();
+            if (discovered.get() == 0) {
+                // Still opening the index or walking to the first matching file
+                continue;
+            }
+            double elapsed = (System.nanoTime() - start) / 1e9;
+            err.printf(Locale.ROOT, "  %d/%d files, %.1f files/s (%.1f files/s overall)%n", done, discovered.get(),
+                    (done - lastProcessed) * 1000.0 / PROGRESS_INTERVAL_MILLIS, done / elapsed);
+            lastProcessed = done;
+        }
+    }
+
+    private int search(Arguments arguments) throws Exception {
+        List<String> positional = arguments.positional();
+        if (positional.size() < 2) {
+            throw new IllegalArgumentException("search needs a query and at least one directory");
+        }
+        String query = positional.get(0);
+        List<String> directoryPaths = new ArrayList<>();
+        for (String directoryPath : positional.subList(1, positional.size())) {
+            String path = normalize(directoryPath);
+            if (!Searcher.isValidIndexDirectory(path)) {
+                err.println("Not indexed: " + path);
+                return EXIT_NOT_INDEXED;
+            }
+            directoryPaths.add(path);
+        }
+        int size = arguments.intOption("size", 10);
+        SnippetMode snippetMode = snippetMode(arguments.option("snippets", "none"));
+        SearchFilter filter = filter(arguments, directoryPaths);
+        SearchSort sort = SearchSort.fromName(arguments.option("sort", "relevance"));
+        if (query.isBlank() && filter.isEmpty()) {
+            throw new IllegalArgumentException("An empty query needs --ext, --under or --days");
+        }
+
+        Searcher searcher = directoryPaths.size() == 1
+                ? new Searcher(directoryPaths.get(0))
+                : new Searcher(directoryPaths);
+        try {
+            long start = System.nanoTime();
+            SearchPage page = searcher.searchPage(query, filter, sort, size, snippetMode);
+            double millis = (System.nanoTime() - start) / 1e6;
+            out.printf(Locale.ROOT, "%s%d hits in %.1f ms%n", page.isTotalHitsExact() ? "" : ">=",
+                    page.getTotalHits(), millis);
+            for (WatchResult result : page.getResults()) {
+                out.printf(Locale.ROOT, "%8.3f  %s%n", result.getScore(), result.getFilePath());
+                if (snippetMode != SnippetMode.NONE && result.getContent() != null && !result.getContent().isBlank()) {
+                    out.println("          " + result.getContent().strip().replaceAll("\\s+", " "));
+                }
+            }
+        } finally {
+            searcher.close();
+        }
+        return EXIT_OK;
+    }
+
+    private int stats(Arguments arguments) throws IOException {
+        List<String> positional = arguments.positional();
+        if (positional.isEmpty()) {
+            throw new IllegalArgumentException("stats needs at least one directory");
+        }
+        int exitCode = EXIT_OK;
+        for (String directoryPath : positional) {
+            String path = normalize(directoryPath);
+            if (!Searcher.isValidIndexDirectory(path)) {
+                err.println("Not indexed: " + path);
+                exitCode = EXIT_NOT_INDEXED;
+                continue;
+            }
+            IndexSettings settings = IndexSettings.load(path);
+            out.println(path);
+            Path location = settings.isSharded() ? FileUtil.getShardsPath(path) : FileUtil.getIndexPath(path);
+            out.println("  index:      " + location);
+            out.println("  profile:    " + settings.getProfile().getName());
+            out.println("  shards:     " + settings.getShardCount()
+                    + (settings.isSharded() ? " (" + settings.getShardRouting().name().toLowerCase(Locale.ROOT) + ")" : ""));
+            long docs = 0, deletedDocs = 0, segments = 0, bytes = 0;
+            for (int shard = 0; shard < settings.getShardCount(); shard++) {
+                Path indexPath = settings.isSharded()
+                        ? FileUtil.getShardIndexPath(path, shard)
+                        : FileUtil.getIndexPath(path);
+                try (Directory directory = FSDirectory.open(indexPath);
+                     DirectoryReader reader = DirectoryReader.open(directory)) {
+                    docs += reader.numDocs();
+                    deletedDocs += reader.numDeletedDocs();
+                    segments += SegmentInfos.readLatestCommit(directory).size();
+                    bytes += sizeOnDisk(directory);
+                }
+            }
+            out.printf(Locale.ROOT, "  documents:  %d (%d deleted)%n", docs, deletedDocs);
+            out.printf(Locale.ROOT, "  segments:   %d%n", segments);
+            out.printf(Locale.ROOT, "  size:       %.2f MB%n", bytes / MB);
+        }
+        return exitCode;
+    }
+
+    private static long sizeOnDisk(Directory directory) throws IOException {
+        long bytes = 0;
+        for (String file : directory.listAll()) {
+            bytes += directory.fileLength(file);
+        }
+        return bytes;
+    }
+
+    /**
+     * Builds the filter from the options. A relative {@code --under} is resolved against the searched directory,
+     * like the server does, so it needs an absolute path when several directories are searched.
+     */
+    private static SearchFilter filter(Arguments arguments, List<String> directoryPaths) {
+        SearchFilter.Builder builder = new SearchFilter.Builder();
+        if (arguments.has("ext")) {
+            builder.extensions(arguments.option("ext", "").split(","));
+        }
+        if (arguments.has("under")) {
+            String under = arguments.option("under", ".");
+            if (directoryPaths.size() > 1 && !Paths.get(under).isAbsolute()) {
+                throw new IllegalArgumentException("--under must be absolute when searching several directories");
+            }
+            builder.under(directoryPaths.get(0), under);
+        }
+        if (arguments.has("days")) {
+            builder.modifiedAfter(Instant.now().minus(Duration.ofDays(arguments.intOption("days", 1))));
+        }
+        return builder.build();
+    }
+
+    private static SnippetMode snippetMode(String value) {
+        try {
+            return SnippetMode.valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown snippet mode: " + value);
+        }
+    }
+
+    private static String normalize(String directoryPath) {
+        return Paths.get(directoryPath).toAbsolutePath().normalize().toString();
+    }
+
+    /**
+     * Positional arguments and {@code --name value} options; {@code --quiet} is the only flag.
+     */
+    private record Arguments(List<String> positional, Map<String, String> options) {
+
+        static Arguments parse(String[] args) {
+            List<String> positional = new ArrayList<>();
+            Map<String, String> options = new HashMap<>();
+            for (int i = 0; i < args.length; i++) {
+                if (!args[i].startsWith("--")) {
+                    positional.add(args[i]);
+                } else if (args[i].equals("--quiet")) {
+                    options.put("quiet", "true");
+                } else if (i + 1 < args.length) {
+                    options.put(args[i].substring(2), args[++i]);
+                } else {
+                    throw new IllegalArgumentException(args[i] + " requires a value");
+                }
+            }
+            return new Arguments(positional, options);
+        }
+
+        String single(String name) {
+            if (positional.size() != 1) {
+                throw new IllegalArgumentException("Expected exactly one " + name);
+            }
+            return positional.get(0);
+        }
+
+        boolean has(String name) {
+            return options.containsKey(name);
+        }
+
+        String option(String name, String defaultValue) {
+            return options.getOrDefault(name, defaultValue);
+        }
+
+        int intOption(String name, int defaultValue) {
+            String value = options.get(name);
+            if (value == null) {
+                return defaultValue;
+            }
+            try {
+                int parsed = Integer.parseInt(value);
+                if (parsed < 1) {
+                    throw new IllegalArgumentException("--" + name + " must be positive");
+                }
+                return parsed;
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("--" + name + " must be a number");
+            }
+        }
+    }
+}
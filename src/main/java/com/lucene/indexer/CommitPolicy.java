@@ -0,0 +1,84 @@
+package com.lucene.indexer;
+
+import java.time.Duration;
+
+/**
+ * Decides when an {@link Indexer} commits pending documents.
+ * Any configured threshold triggers a commit; a policy with no thresholds
+ * only commits at the end of a directory run and on close.
+ */
+public class CommitPolicy {
+
+    public static final CommitPolicy ON_FINISH = new Builder().build();
+    public static final CommitPolicy DEFAULT = new Builder()
+            .maxDocuments(10_000)
+            .maxInterval(Duration.ofMinutes(1))
+            .build();
+
+    private final long maxDocuments;
+    private final double maxRamBufferMB;
+    private final long maxIntervalMillis;
+
+    private CommitPolicy(long maxDocuments, double maxRamBufferMB, long maxIntervalMillis) {
+        this.maxDocuments = maxDocuments;
+        this.maxRamBufferMB = maxRamBufferMB;
+        this.maxIntervalMillis = maxIntervalMillis;
+    }
+
+    public static CommitPolicy everyDocuments(long documents) {
+        return new Builder().maxDocuments(documents).build();
+    }
+
+    public static CommitPolicy everyRamBufferMB(double megabytes) {
+        return new Builder().maxRamBufferMB(megabytes).build();
+    }
+
+    public static CommitPolicy every(Duration interval) {
+        return new Builder().maxInterval(interval).build();
+    }
+
+    boolean shouldCommit(long pendingDocuments, long ramBytesUsed, long millisSinceLastCommit) {
+        if (pendingDocuments <= 0) {
+            return false;
+        }
+        if (maxDocuments > 0 && pendingDocuments >= maxDocuments) {
+            return true;
+        }
+        if (maxRamBufferMB > 0 && ramBytesUsed >= maxRamBufferMB * 1024 * 1024) {
+            return true;
+        }
+        return maxIntervalMillis > 0 && millisSinceLastCommit >= maxIntervalMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "CommitPolicy[documents=" + maxDocuments + ", ramBufferMB=" + maxRamBufferMB
+                + ", intervalMs=" + maxIntervalMillis + "]";
+    }
+
+    public static class Builder {
+
+        private long maxDocuments = 0;
+        private double maxRamBufferMB = 0;
+        private long maxIntervalMillis = 0;
+
+        public Builder maxDocuments(long maxDocuments) {
+            this.maxDocuments = maxDocuments;
+            return this;
+        }
+
+        public Builder maxRamBufferMB(double maxRamBufferMB) {
+            this.maxRamBufferMB = maxRamBufferMB;
+            return this;
+        }
+
+        public Builder maxInterval(Duration maxInterval) {
+            this.maxIntervalMillis = maxInterval.toMillis();
+            return this;
+        }
+
+        public CommitPolicy build() {
+            return new CommitPolicy(maxDocuments, maxRamBufferMB, maxIntervalMillis);
+        }
+    }
+}
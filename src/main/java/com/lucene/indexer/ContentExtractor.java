@@ -0,0 +1,193 @@
+package com.lucene.indexer;
+
+import com.lucene.util.FileUtil;
+import org.apache.tika.Tika;
+import org.apache.tika.io.TemporaryResources;
+import org.apache.tika.io.TikaInputStream;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.parser.ParseContext;
+import org.apache.tika.parser.ParsingReader;
+
+import java.io.BufferedReader;
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Turns a file into a character stream for indexing without loading it into the heap.
+ * Plain-text formats are decoded directly; office formats are parsed by Tika on a
+ * virtual thread that feeds the returned reader through a pipe. Every stream is cut
+ * off after {@code maxChars} characters.
+ */
+public class ContentExtractor {
+
+    private static final Set<String> TIKA_FILE_TYPES = Set.of("doc", "docx", "pptx");
+    private static final ExecutorService PARSER_EXECUTOR = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("TikaParser-", 0).factory());
+
+    private final Tika tika = new Tika();
+    private final int maxChars;
+
+    public ContentExtractor(int maxChars) {
+        this.maxChars = maxChars;
+    }
+
+    /**
+     * Opens a reader over the text of the file. The caller must close it.
+     */
+    public Reader open(Path file) throws IOException {
+        return open(file, null);
+    }
+
+    /**
+     * Opens a reader over the text of the file that also feeds every byte of the file into {@code digest},
+     * so the file is read once for both. Bytes the reader did not need, past the character limit or
+     * skipped by a parser, are read when it is closed; the digest is complete once {@code close} returns.
+     * A null digest opens the file as {@link #open(Path)} does.
+     */
+    public Reader open(Path file, MessageDigest digest) throws IOException {
+        boolean tikaFormat = needsTika(file);
+        Metadata metadata = new Metadata();
+        InputStream in;
+        if (digest != null) {
+            InputStream digested = new DrainingDigestInputStream(Files.newInputStream(file), digest);
+            // Tika spools the stream to a temp file itself if a container parser needs one
+            in = tikaFormat ? TikaInputStream.get(digested, new TemporaryResources(), metadata) : digested;
+        } else if (tikaFormat) {
+            // TikaInputStream keeps the file path so container formats can be opened without buffering them
+            in = TikaInputStream.get(file, metadata);
+        } else {
+            in = Files.newInputStream(file);
+        }
+        try {
+            Reader reader;
+            if (tikaFormat && digest != null) {
+                // The parse task closes, and so drains, the stream; wait for it so the digest is complete
+                CompletableFuture<Void> parsed = new CompletableFuture<>();
+                Executor executor = task -> PARSER_EXECUTOR.execute(() -> {
+                    try {
+                        task.run();
+                    } finally {
+                        parsed.complete(null);
+                    }
+                });
+                reader = new AwaitingReader(
+                        new ParsingReader(tika.getParser(), in, metadata, new ParseContext(), executor), parsed);
+            } else if (tikaFormat) {
+                reader = new ParsingReader(tika.getParser(), in, metadata, new ParseContext(), PARSER_EXECUTOR);
+            } else {
+                // InputStreamReader replaces malformed input instead of failing the whole file
+                reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            }
+            return new LimitedReader(reader, maxChars);
+        } catch (IOException | RuntimeException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    private static boolean needsTika(Path file) {
+        return TIKA_FILE_TYPES.contains(FileUtil.extensionOf(file));
+    }
+
+    /**
+     * Waits on close for the background parse to finish with the stream.
+     */
+    private static class AwaitingReader extends FilterReader {
+
+        private final CompletableFuture<Void> parsed;
+
+        AwaitingReader(Reader in, CompletableFuture<Void> parsed) {
+            super(in);
+            this.parsed = parsed;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                // Closing the pipe makes the parser fail its next write, so this does not wait for a full parse
+                parsed.join();
+            }
+        }
+    }
+
+    /**
+     * Reads whatever the reader left unread on close, so the digest covers the whole file.
+     */
+    private static class DrainingDigestInputStream extends DigestInputStream {
+
+        DrainingDigestInputStream(InputStream in, MessageDigest digest) {
+            super(in, digest);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                byte[] buffer = new byte[64 * 1024];
+                while (read(buffer) != -1) {
+                    // digested by read
+                }
+            } finally {
+                super.close();
+            }
+        }
+    }
+
+    /**
+     * Reports end of stream once the character budget is spent.
+     */
+    private static class LimitedReader extends FilterReader {
+
+        private long remaining;
+
+        LimitedReader(Reader in, long maxChars) {
+            super(in);
+            this.remaining = maxChars;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int c = super.read();
+            if (c != -1) {
+                remaining--;
+            }
+            return c;
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int n = super.read(cbuf, off, (int) Math.min(len, remaining));
+            if (n > 0) {
+                remaining -= n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(Math.min(n, remaining));
+            remaining -= skipped;
+            return skipped;
+        }
+    }
+}
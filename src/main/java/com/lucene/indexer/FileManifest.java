@@ -0,0 +1,206 @@
+package com.lucene.indexer;
+
+import com.lucene.util.logging.CustomLogger;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+/**
+ * Records size, modification time and content hash of every indexed file so that
+ * re-indexing a directory only touches files that were added, changed or deleted.
+ * The manifest lives next to the Lucene files in the index directory and is only
+ * written after a successful commit.
+ */
+public class FileManifest {
+
+    static final String FILE_NAME = "lucid-manifest.tsv";
+    private static final Logger logger = CustomLogger.getLogger(FileManifest.class.getName());
+    private static final String HEADER_PREFIX = "# lucid-manifest v";
+
+    private final Path file;
+    private final int schemaVersion;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private int loadedSchemaVersion;
+
+    private FileManifest(Path file, int schemaVersion) {
+        this.file = file;
+        this.schemaVersion = schemaVersion;
+    }
+
+    /**
+     * Loads the manifest stored in the given index directory. A missing manifest, or one written
+     * for a different document schema, yields an empty manifest so every file gets re-indexed.
+     */
+    public static FileManifest load(Path indexPath, int schemaVersion) throws IOException {
+        FileManifest manifest = new FileManifest(indexPath.resolve(FILE_NAME), schemaVersion);
+        if (!Files.exists(manifest.file)) {
+            return manifest;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(manifest.file, StandardCharsets.UTF_8)) {
+            String header = reader.readLine();
+            manifest.loadedSchemaVersion = parseVersion(header);
+            if (manifest.loadedSchemaVersion != schemaVersion) {
+                logger.info("Manifest schema changed, all files will be re-indexed: " + manifest.file);
+                return manifest;
+            }
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split("\t", 4);
+                if (parts.length != 4) {
+                    logger.warning("Skipping malformed manifest line: " + line);
+                    continue;
+                }
+                try {
+                    manifest.entries.put(parts[3], new Entry(Long.parseLong(parts[0]), Long.parseLong(parts[1]), parts[2]));
+                } catch (NumberFormatException e) {
+                    logger.warning("Skipping malformed manifest line: " + line);
+                }
+            }
+        }
+        return manifest;
+    }
+
+    /**
+     * Schema version the manifest file was written for, or 0 if there was no readable manifest. The
+     * entries are only loaded when it matches the current version.
+     */
+    public int getLoadedSchemaVersion() {
+        return loadedSchemaVersion;
+    }
+
+    private static int parseVersion(String header) {
+        if (header == null || !header.startsWith(HEADER_PREFIX)) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(header.substring(HEADER_PREFIX.length()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    public Entry get(String path) {
+        return entries.get(path);
+    }
+
+    public void put(String path, Entry entry) {
+        entries.put(path, entry);
+    }
+
+    public void remove(String path) {
+        entries.remove(path);
+    }
+
+    public Set<String> paths() {
+        return entries.keySet();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Takes a point-in-time copy of the entries, to be persisted with {@link #save(Map)} once the
+     * matching commit has succeeded.
+     */
+    Map<String, Entry> snapshot() {
+        return new HashMap<>(entries);
+    }
+
+    /**
+     * Atomically replaces the manifest file with the given entries.
+     */
+    void save(Map<String, Entry> snapshot) throws IOException {
+        Path tmp = file.resolveSibling(FILE_NAME + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            writer.write(HEADER_PREFIX + schemaVersion);
+            writer.newLine();
+            for (Map.Entry<String, Entry> e : snapshot.entrySet()) {
+                Entry entry = e.getValue();
+                writer.write(entry.size + "\t" + entry.modifiedMillis + "\t" + entry.hash + "\t" + e.getKey());
+                writer.newLine();
+            }
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * SHA-256 of the file, read in fixed-size chunks.
+     */
+    public static String hash(Path path) throws IOException {
+        MessageDigest digest = newDigest();
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = Files.newInputStream(path)) {
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, n);
+            }
+        }
+        return toHex(digest);
+    }
+
+    /**
+     * A fresh digest of the kind {@link #hash(Path)} computes, for hashing a file while it is read for indexing.
+     */
+    static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    static String toHex(MessageDigest digest) {
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    public static class Entry {
+
+        private final long size;
+        private final long modifiedMillis;
+        private final String hash;
+
+        public Entry(long size, long modifiedMillis, String hash) {
+            this.size = size;
+            this.modifiedMillis = modifiedMillis;
+            this.hash = hash;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public long getModifiedMillis() {
+            return modifiedMillis;
+        }
+
+        public String getHash() {
+            return hash;
+        }
+
+        /**
+         * True if size and modification time match, meaning the file does not need to be read again.
+         */
+        public boolean sameMetadata(long size, long modifiedMillis) {
+            return this.size == size && this.modifiedMillis == modifiedMillis;
+        }
+    }
+}
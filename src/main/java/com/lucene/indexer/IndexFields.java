@@ -0,0 +1,44 @@
+package com.lucene.indexer;
+
+/**
+ * Names of the fields written by {@link Indexer} and read by the searcher.
+ */
+public final class IndexFields {
+
+    /**
+     * Normalized absolute path, indexed as a single untokenized term. Used as the update and delete key.
+     */
+    public static final String ID = "id";
+    public static final String FILENAME = "filename";
+    /**
+     * Extracted text, indexed from a stream with offsets. Only the first
+     * {@link IndexSettings#getHighlightChars()} characters are stored, for highlighting; see also {@link #PREVIEW}.
+     */
+    public static final String CONTENT = "content";
+    /**
+     * Stored start of the extracted text, used for result previews.
+     */
+    public static final String PREVIEW = "preview";
+    public static final String PATH = "path";
+    /**
+     * Lower-case file extension without the dot, as a keyword with sorted doc values. Absent for files without one.
+     */
+    public static final String EXTENSION = "extension";
+    /**
+     * Every ancestor directory of the file as a normalized absolute path, one untokenized term each,
+     * so "anywhere under a folder" is a single term lookup.
+     */
+    public static final String FOLDER = "folder";
+    /**
+     * File size in bytes: point-indexed, with doc values for sorting, and stored.
+     */
+    public static final String SIZE = "size";
+    /**
+     * Last modified time in epoch milliseconds, indexed like {@link #SIZE}.
+     */
+    public static final String MODIFIED = "modified";
+
+    private IndexFields() {
+        // Prevent instantiation
+    }
+}
@@ -0,0 +1,115 @@
+package com.lucene.indexer;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.codecs.lucene99.Lucene99Codec;
+import org.apache.lucene.index.ConcurrentMergeScheduler;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.TieredMergePolicy;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.MMapDirectory;
+import org.apache.lucene.store.NIOFSDirectory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Named performance profiles that decide how an index directory is opened and how its writer
+ * buffers, merges and encodes segments. The profile is chosen per indexed directory and saved
+ * in its {@link IndexSettings}.
+ */
+public enum IndexProfile {
+
+    /**
+     * Large RAM buffer, wide tiers and several merge threads to maximize indexing throughput.
+     */
+    BULK_LOAD("bulk-load", true, 256, 20, 5 * 1024, 16, mergeThreads(4), false, Lucene99Codec.Mode.BEST_SPEED),
+    /**
+     * Few, well-merged segments on memory-mapped files so queries touch as few segments as possible.
+     */
+    LOW_LATENCY_SEARCH("low-latency-search", true, 64, 5, 5 * 1024, 4, mergeThreads(2), false, Lucene99Codec.Mode.BEST_SPEED),
+    /**
+     * Small buffers, a single merge thread, compound files and compressed stored fields for small machines.
+     */
+    LOW_MEMORY("low-memory", false, 16, 10, 1024, 2, 1, true, Lucene99Codec.Mode.BEST_COMPRESSION);
+
+    public static final IndexProfile DEFAULT = LOW_LATENCY_SEARCH;
+
+    private final String name;
+    private final boolean memoryMapped;
+    private final double ramBufferSizeMB;
+    private final double segmentsPerTier;
+    private final double maxMergedSegmentMB;
+    private final double floorSegmentMB;
+    private final int maxMergeThreads;
+    private final boolean compoundFiles;
+    private final Lucene99Codec.Mode codecMode;
+
+    IndexProfile(String name, boolean memoryMapped, double ramBufferSizeMB, double segmentsPerTier,
+                 double maxMergedSegmentMB, double floorSegmentMB, int maxMergeThreads, boolean compoundFiles,
+                 Lucene99Codec.Mode codecMode) {
+        this.name = name;
+        this.memoryMapped = memoryMapped;
+        this.ramBufferSizeMB = ramBufferSizeMB;
+        this.segmentsPerTier = segmentsPerTier;
+        this.maxMergedSegmentMB = maxMergedSegmentMB;
+        this.floorSegmentMB = floorSegmentMB;
+        this.maxMergeThreads = maxMergeThreads;
+        this.compoundFiles = compoundFiles;
+        this.codecMode = codecMode;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public static IndexProfile fromName(String name) {
+        for (IndexProfile profile : values()) {
+            if (profile.name.equals(name)) {
+                return profile;
+            }
+        }
+        throw new IllegalArgumentException("Unknown index profile: " + name);
+    }
+
+    public static String[] names() {
+        IndexProfile[] profiles = values();
+        String[] names = new String[profiles.length];
+        for (int i = 0; i < profiles.length; i++) {
+            names[i] = profiles[i].name;
+        }
+        return names;
+    }
+
+    public Directory openDirectory(Path indexPath) throws IOException {
+        return memoryMapped ? new MMapDirectory(indexPath) : new NIOFSDirectory(indexPath);
+    }
+
+    public IndexWriterConfig newWriterConfig(Analyzer analyzer) {
+        TieredMergePolicy mergePolicy = new TieredMergePolicy();
+        mergePolicy.setSegmentsPerTier(segmentsPerTier);
+        mergePolicy.setMaxMergedSegmentMB(maxMergedSegmentMB);
+        mergePolicy.setFloorSegmentMB(floorSegmentMB);
+        mergePolicy.setNoCFSRatio(compoundFiles ? 1.0 : 0.0);
+
+        ConcurrentMergeScheduler mergeScheduler = new ConcurrentMergeScheduler();
+        // Lucene requires room for at least as many queued merges as running ones
+        mergeScheduler.setMaxMergesAndThreads(maxMergeThreads + 5, maxMergeThreads);
+
+        IndexWriterConfig config = new IndexWriterConfig(analyzer);
+        config.setRAMBufferSizeMB(ramBufferSizeMB);
+        config.setMergePolicy(mergePolicy);
+        config.setMergeScheduler(mergeScheduler);
+        config.setUseCompoundFile(compoundFiles);
+        config.setCodec(new Lucene99Codec(codecMode));
+        return config;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    private static int mergeThreads(int max) {
+        return Math.max(1, Math.min(max, Runtime.getRuntime().availableProcessors() / 2));
+    }
+}
@@ -0,0 +1,156 @@
+package com.lucene.indexer;
+
+import com.lucene.util.FileUtil;
+import com.lucene.util.logging.CustomLogger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+import java.util.logging.Logger;
+
+/**
+ * Per-directory index settings, saved as "LucidSearch/data/[encoded-directory-name].properties"
+ * next to the index itself.
+ */
+public class IndexSettings {
+
+    private static final Logger logger = CustomLogger.getLogger(IndexSettings.class.getName());
+    private static final String PROFILE_KEY = "profile";
+    private static final String PREVIEW_CHARS_KEY = "previewChars";
+    private static final String HIGHLIGHT_CHARS_KEY = "highlightChars";
+    private static final String SHARDS_KEY = "shards";
+    private static final String SHARD_ROUTING_KEY = "shardRouting";
+    private static final String FILE_TYPE_KEY = "fileType";
+    private static final String ALL_FILE_TYPES = "all";
+
+    private IndexProfile profile = IndexProfile.DEFAULT;
+    private int previewChars = Indexer.DEFAULT_PREVIEW_CHARS;
+    private int highlightChars = Indexer.DEFAULT_HIGHLIGHT_CHARS;
+    private int shardCount = 1;
+    private ShardRouting shardRouting = ShardRouting.DEFAULT;
+    private String fileType = ALL_FILE_TYPES;
+
+    public IndexProfile getProfile() {
+        return profile;
+    }
+
+    public void setProfile(IndexProfile profile) {
+        this.profile = profile;
+    }
+
+    /**
+     * Characters of each file stored as its result preview; 0 stores no preview.
+     * Applies to files indexed after the change.
+     */
+    public int getPreviewChars() {
+        return previewChars;
+    }
+
+    public void setPreviewChars(int previewChars) {
+        this.previewChars = Math.max(0, previewChars);
+    }
+
+    /**
+     * Characters at the start of each file stored for highlighted snippets; 0 stores none and highlighted
+     * results show the preview. Each stored character adds to the index size, so raise it only where
+     * snippets from deep inside files are wanted. Applies to files indexed after the change.
+     */
+    public int getHighlightChars() {
+        return highlightChars;
+    }
+
+    public void setHighlightChars(int highlightChars) {
+        this.highlightChars = Math.max(0, highlightChars);
+    }
+
+    /**
+     * Number of sub-indexes the directory's index is split into; 1 means a single, unsharded index.
+     */
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    public void setShardCount(int shardCount) {
+        this.shardCount = Math.max(1, shardCount);
+    }
+
+    public boolean isSharded() {
+        return shardCount > 1;
+    }
+
+    public ShardRouting getShardRouting() {
+        return shardRouting;
+    }
+
+    public void setShardRouting(ShardRouting shardRouting) {
+        this.shardRouting = shardRouting;
+    }
+
+    /**
+     * File type the directory was last indexed with, "all" or one extension. Live sync and catch-up
+     * runs use it so they keep to the same files.
+     */
+    public String getFileType() {
+        return fileType;
+    }
+
+    public void setFileType(String fileType) {
+        this.fileType = fileType;
+    }
+
+    /**
+     * Loads the settings saved for a source directory, falling back to defaults when none exist.
+     */
+    public static IndexSettings load(String sourceDirectory) {
+        IndexSettings settings = new IndexSettings();
+        Path file = FileUtil.getSettingsPath(sourceDirectory);
+        if (!Files.exists(file)) {
+            return settings;
+        }
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(file)) {
+            properties.load(in);
+            settings.profile = IndexProfile.fromName(properties.getProperty(PROFILE_KEY, IndexProfile.DEFAULT.getName()));
+            settings.setPreviewChars(Integer.parseInt(properties.getProperty(PREVIEW_CHARS_KEY,
+                    String.valueOf(Indexer.DEFAULT_PREVIEW_CHARS))));
+            settings.setHighlightChars(Integer.parseInt(properties.getProperty(HIGHLIGHT_CHARS_KEY,
+                    String.valueOf(Indexer.DEFAULT_HIGHLIGHT_CHARS))));
+            settings.setShardCount(Integer.parseInt(properties.getProperty(SHARDS_KEY, "1")));
+            settings.shardRouting = ShardRouting.fromName(properties.getProperty(SHARD_ROUTING_KEY,
+                    ShardRouting.DEFAULT.name()));
+            settings.fileType = properties.getProperty(FILE_TYPE_KEY, ALL_FILE_TYPES);
+        } catch (IOException | IllegalArgumentException e) {
+            logger.warning("Ignoring unreadable index settings " + file + ": " + e.getMessage());
+        }
+        return settings;
+    }
+
+    public void save(String sourceDirectory) throws IOException {
+        Path file = FileUtil.getSettingsPath(sourceDirectory);
+        Files.createDirectories(file.getParent());
+        Properties properties = new Properties();
+        properties.setProperty(PROFILE_KEY, profile.getName());
+        properties.setProperty(PREVIEW_CHARS_KEY, String.valueOf(previewChars));
+        properties.setProperty(HIGHLIGHT_CHARS_KEY, String.valueOf(highlightChars));
+        properties.setProperty(SHARDS_KEY, String.valueOf(shardCount));
+        properties.setProperty(SHARD_ROUTING_KEY, shardRouting.name());
+        properties.setProperty(FILE_TYPE_KEY, fileType);
+        try (OutputStream out = Files.newOutputStream(file)) {
+            properties.store(out, "LucidSearch index settings for " + sourceDirectory);
+        }
+    }
+
+    /**
+     * Saves the file type a directory was indexed with, if it changed.
+     */
+    static void recordFileType(String sourceDirectory, String fileType) throws IOException {
+        IndexSettings settings = load(sourceDirectory);
+        if (!settings.fileType.equals(fileType)) {
+            settings.fileType = fileType;
+            settings.save(sourceDirectory);
+        }
+    }
+}
@@ -1,114 +1,530 @@
 package com.lucene.indexer;
 
-import com.lucene.util.Constants;
+import com.lucene.metrics.Counter;
+import com.lucene.metrics.Metric;
+import com.lucene.metrics.Metrics;
+import com.lucene.model.IndexingSummary;
 import com.lucene.util.FileUtil;
 import com.lucene.util.logging.CustomLogger;
 import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.analysis.standard.StandardAnalyzer;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field;
+import org.apache.lucene.document.FieldType;
+import org.apache.lucene.document.KeywordField;
+import org.apache.lucene.document.LongField;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
 import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexOptions;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
 import org.apache.lucene.index.Term;
-import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.search.PrefixQuery;
 import org.apache.lucene.store.Directory;
-import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.IOUtils;
 
+import java.io.File;
 import java.io.IOException;
-import java.nio.file.DirectoryStream;
+import java.io.PushbackReader;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Logger;
 
 public class Indexer {
 
     private static final Logger logger = CustomLogger.getLogger(Indexer.class.getName());
+    private static final int DEFAULT_WORKER_COUNT = Runtime.getRuntime().availableProcessors();
+    static final int DEFAULT_QUEUE_CAPACITY = 1024;
+    /**
+     * Version of the document layout. Bumping it invalidates stored manifests so every file is re-indexed.
+     */
+    static final int SCHEMA_VERSION = 5;
+    public static final int DEFAULT_MAX_CONTENT_CHARS = 10_000_000;
+    /**
+     * Default characters of content shown in previews. One extra character is stored so readers
+     * can tell it was cut.
+     */
+    public static final int DEFAULT_PREVIEW_CHARS = 150;
+    /**
+     * Default characters at the start of each file stored with the content for highlighting. Matches
+     * further in are still found, but the hit shows its preview instead of a snippet. Stored text is
+     * compressed but still costs up to about this many bytes per file, so the default stays small.
+     */
+    public static final int DEFAULT_HIGHLIGHT_CHARS = 1_000;
+    /**
+     * Content is indexed with offsets so the highlighter reads match positions from the postings
+     * instead of re-analyzing the text.
+     */
+    private static final FieldType CONTENT_TYPE = newContentType();
     private final Directory directory;
     private final Analyzer analyzer;
     private final IndexWriter writer;
     private final String sourceDirectoryPath;
+    private final FileManifest manifest;
+    private int workerCount = DEFAULT_WORKER_COUNT;
+    private int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+    private CommitPolicy commitPolicy = CommitPolicy.DEFAULT;
+    private ContentExtractor contentExtractor = new ContentExtractor(DEFAULT_MAX_CONTENT_CHARS);
+    private int previewChars = DEFAULT_PREVIEW_CHARS;
+    private int highlightChars = DEFAULT_HIGHLIGHT_CHARS;
+    private final Object commitLock = new Object();
+    private final AtomicLong pendingDocuments = new AtomicLong();
+    private final AtomicInteger commitCount = new AtomicInteger();
+    private final AtomicBoolean manifestDirty = new AtomicBoolean();
+    private volatile long lastCommitMillis = System.currentTimeMillis();
 
-    public Indexer(ByteBuffersDirectory index) throws IOException {
+    /**
+     * Creates an indexer over a directory the caller owns, such as a {@link ScratchDirectory};
+     * it is left open on {@link #close()}.
+     */
+    public Indexer(Directory index) throws IOException {
         this.directory = index;
         this.analyzer = new StandardAnalyzer();
         IndexWriterConfig config = new IndexWriterConfig(analyzer);
         this.writer = new IndexWriter(this.directory, config);
         this.sourceDirectoryPath = null;
+        this.manifest = null;
     }
 
-    public Indexer(ByteBuffersDirectory index, Analyzer analyzer) throws IOException {
+    public Indexer(Directory index, Analyzer analyzer) throws IOException {
         this.directory = index;
         this.analyzer = analyzer;
         IndexWriterConfig config = new IndexWriterConfig(analyzer);
         this.writer = new IndexWriter(directory, config);
         this.sourceDirectoryPath = null;
+        this.manifest = null;
     }
     
     /**
      * Create an indexer for a given source directory.
      * The index will be stored in "LucidSearch/data/[encoded-directory-name]"
+     * and opened with the profile saved for that directory.
+     * Fails if the directory's index is sharded, see {@link ShardedIndexer}.
      */
     public Indexer(String sourceDirectoryPath) throws IOException {
+        this(sourceDirectoryPath, requireUnsharded(sourceDirectoryPath).getProfile());
+    }
+
+    /**
+     * Create an indexer for a given source directory using the given profile,
+     * which is saved so later indexers and searchers reopen the index the same way.
+     * If the directory's index was sharded, the shards are deleted and it is rebuilt as one index.
+     */
+    public Indexer(String sourceDirectoryPath, IndexProfile profile) throws IOException {
+        this(sourceDirectoryPath, FileUtil.getIndexPath(sourceDirectoryPath),
+                unshardedSettings(sourceDirectoryPath, profile), false);
+    }
+
+    /**
+     * Opens the index at {@code indexPath} for a source directory, either its whole index or one
+     * shard of it. With {@code create}, whatever the index held before is dropped.
+     */
+    Indexer(String sourceDirectoryPath, Path indexPath, IndexSettings settings, boolean create) throws IOException {
         this.sourceDirectoryPath = sourceDirectoryPath;
         this.analyzer = new StandardAnalyzer();
-        Path indexPath = FileUtil.getIndexPath(sourceDirectoryPath);
         Files.createDirectories(indexPath);
-        
-        logger.info("Creating index at: " + indexPath);
-        this.directory = FSDirectory.open(indexPath);
-        IndexWriterConfig config = new IndexWriterConfig(analyzer);
+
+        IndexProfile profile = settings.getProfile();
+        logger.info("Creating index at: " + indexPath + " with profile " + profile);
+        this.directory = profile.openDirectory(indexPath);
+        this.manifest = FileManifest.load(indexPath, SCHEMA_VERSION);
+        boolean rebuild = create || isOutdated(indexPath);
+        IndexWriterConfig config = profile.newWriterConfig(analyzer);
         // Use CREATE_OR_APPEND to preserve any existing index
-        config.setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND);
+        config.setOpenMode(rebuild ? IndexWriterConfig.OpenMode.CREATE : IndexWriterConfig.OpenMode.CREATE_OR_APPEND);
         this.writer = new IndexWriter(directory, config);
+        if (rebuild) {
+            manifest.clear();
+            manifestDirty.set(true);
+        }
+        this.previewChars = settings.getPreviewChars();
+        this.highlightChars = settings.getHighlightChars();
+    }
+
+    private static IndexSettings requireUnsharded(String sourceDirectoryPath) throws IOException {
+        IndexSettings settings = IndexSettings.load(sourceDirectoryPath);
+        if (settings.isSharded()) {
+            throw new IOException("The index of " + sourceDirectoryPath + " has " + settings.getShardCount()
+                    + " shards; open it with ShardedIndexer");
+        }
+        return settings;
+    }
+
+    /**
+     * Saves the profile and a single-index layout for the directory, deleting the shards left from a sharded layout.
+     */
+    private static IndexSettings unshardedSettings(String sourceDirectoryPath, IndexProfile profile) throws IOException {
+        IndexSettings settings = IndexSettings.load(sourceDirectoryPath);
+        boolean changed = settings.getProfile() != profile;
+        settings.setProfile(profile);
+        if (settings.isSharded()) {
+            logger.info("Replacing " + settings.getShardCount() + " shards of " + sourceDirectoryPath + " with one index");
+            IOUtils.rm(FileUtil.getShardsPath(sourceDirectoryPath));
+            settings.setShardCount(1);
+            changed = true;
+        }
+        if (changed) {
+            settings.save(sourceDirectoryPath);
+        }
+        return settings;
     }
 
-    public void indexDirectory(String directoryPath, String fileType) throws IOException {
-        Path docDir = Paths.get(directoryPath);
+    /**
+     * Sets the number of worker threads used by {@link #indexDirectory(String, String)}.
+     */
+    public void setWorkerCount(int workerCount) {
+        this.workerCount = Math.max(1, workerCount);
+    }
+
+    /**
+     * Sets how many discovered files may wait for a worker before the directory walker blocks.
+     */
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = Math.max(1, queueCapacity);
+    }
+
+    /**
+     * Sets when pending documents are committed. Directory runs always commit once at the end.
+     */
+    public void setCommitPolicy(CommitPolicy commitPolicy) {
+        this.commitPolicy = commitPolicy;
+    }
+
+    /**
+     * Caps how many characters of each file are extracted and indexed.
+     */
+    public void setMaxContentChars(int maxContentChars) {
+        this.contentExtractor = new ContentExtractor(Math.max(0, maxContentChars));
+    }
+
+    /**
+     * Sets how many characters of each file are stored as its preview; 0 stores none.
+     * Directory indexes take this from their {@link IndexSettings}.
+     */
+    public void setPreviewChars(int previewChars) {
+        this.previewChars = Math.max(0, previewChars);
+    }
+
+    public int getPreviewChars() {
+        return previewChars;
+    }
+
+    /**
+     * Sets how many characters of each file are stored for highlighting; 0 stores none, and highlighted
+     * results then show their preview. Directory indexes take this from their {@link IndexSettings}.
+     */
+    public void setHighlightChars(int highlightChars) {
+        this.highlightChars = Math.max(0, highlightChars);
+    }
+
+    public int getCommitCount() {
+        return commitCount.get();
+    }
+
+    /**
+     * Exposes the writer so searchers can open near-real-time readers on it.
+     */
+    public IndexWriter getWriter() {
+        return writer;
+    }
+
+    /**
+     * Returns the manifest of indexed files, or null for in-memory indexes.
+     */
+    public FileManifest getManifest() {
+        return manifest;
+    }
+
+    /**
+     * Indexes every supported file under the given directory using a bounded
+     * producer/consumer pipeline. Commits follow the commit policy, plus one at the end.
+     * When a manifest is available, unchanged files are skipped and files that disappeared
+     * since the last run are removed from the index.
+     */
+    public IndexingSummary indexDirectory(String directoryPath, String fileType) throws IOException {
+        return indexDirectory(directoryPath, fileType, IndexingListener.NONE);
+    }
+
+    /**
+     * Like {@link #indexDirectory(String, String)}, reporting progress to the listener. If the listener
+     * cancels, the files indexed so far are committed and the summary is marked cancelled.
+     */
+    public IndexingSummary indexDirectory(String directoryPath, String fileType, IndexingListener listener)
+            throws IOException {
+        Path docDir = Paths.get(directoryPath).toAbsolutePath().normalize();
         if (!Files.isDirectory(docDir)) {
             throw new IOException(directoryPath + " is not a valid directory");
         }
-        try (DirectoryStream<Path> stream = Files.newDirectoryStream(docDir)) {
-            for (Path file : stream) {
-                if (!Files.isDirectory(file)) {
-                    String fileName = file.getFileName().toString().toLowerCase();
-                    int idx = fileName.lastIndexOf(".");
-                    String fileExt = (idx > 0) ? fileName.substring(idx + 1) : "INVALID";
-                    if (Constants.FILE_TYPES_SET.contains(fileExt)) {
-                        logger.info("File extension: " + file);
-                        if (fileType.equals("all")) {
-                            indexFile(file);
-                        } else {
-                            if (file.toString().endsWith(fileType)) {
-                                logger.info("Indexing file: " + file.getFileName());
-                                indexFile(file);
-                            }
-                        }
-                    }
-                } else {
-                    logger.info("**Exploring subdirectory (DFS time)**: " + file);
-                    indexDirectory(file.toString(), fileType);
+        long start = System.currentTimeMillis();
+        int commitsBefore = commitCount.get();
+        IndexingSummary.Builder summary = new IndexingPipeline(this, workerCount, queueCapacity, listener)
+                .run(docDir, fileType);
+        commit();
+        if (sourceDirectoryPath != null) {
+            IndexSettings.recordFileType(sourceDirectoryPath, fileType);
+        }
+        IndexingSummary result = summary
+                .commits(commitCount.get() - commitsBefore)
+                .elapsedMillis(System.currentTimeMillis() - start)
+                .build();
+        logger.info("Indexed directory " + directoryPath + ": " + result);
+        return result;
+    }
+
+    /**
+     * Adds or replaces the document for a single file. The commit policy decides whether it is committed now.
+     */
+    public void indexFile(Path filePath) throws IOException {
+        addFile(filePath);
+    }
+
+    /**
+     * Removes a file from the index. The commit policy decides whether the delete is committed now.
+     */
+    public void deleteFile(Path filePath) throws IOException {
+        long start = Metrics.start();
+        Path file = filePath.toAbsolutePath().normalize();
+        writer.deleteDocuments(documentKey(file));
+        if (manifest != null) {
+            manifest.remove(file.toString());
+        }
+        pendingDocuments.incrementAndGet();
+        Metrics.increment(Counter.FILES_DELETED);
+        Metrics.record(Metric.DELETE, start, file);
+        logger.fine("Deleted: " + file);
+        commitIfDue();
+    }
+
+    /**
+     * Removes a file, or every file under a directory, from the index. Used when the path is
+     * already gone and it can no longer be told whether it was a file or a directory.
+     */
+    public void deletePath(Path path) throws IOException {
+        long start = Metrics.start();
+        Path target = path.toAbsolutePath().normalize();
+        String key = target.toString();
+        String prefix = key.endsWith(File.separator) ? key : key + File.separator;
+        writer.deleteDocuments(documentKey(target));
+        writer.deleteDocuments(new PrefixQuery(new Term(IndexFields.ID, prefix)));
+        if (manifest != null) {
+            manifest.paths().removeIf(p -> p.equals(key) || p.startsWith(prefix));
+        }
+        pendingDocuments.incrementAndGet();
+        Metrics.increment(Counter.FILES_DELETED);
+        Metrics.record(Metric.DELETE, start, target);
+        logger.fine("Deleted: " + target);
+        commitIfDue();
+    }
+
+    /**
+     * Removes every document and forgets the manifest, so the next run indexes every file again.
+     * Searchers keep seeing the old documents until the next commit.
+     */
+    public void deleteAll() throws IOException {
+        writer.deleteAll();
+        if (manifest != null) {
+            manifest.clear();
+            manifestDirty.set(true);
+        }
+        pendingDocuments.incrementAndGet();
+    }
+
+    /**
+     * Commits all pending documents if there are any.
+     */
+    public void commit() throws IOException {
+        synchronized (commitLock) {
+            long pending = pendingDocuments.getAndSet(0);
+            boolean saveManifest = manifest != null && manifestDirty.getAndSet(false);
+            if (pending == 0 && !saveManifest && !writer.hasUncommittedChanges()) {
+                return;
+            }
+            // Snapshot before committing so the manifest never lists documents the commit does not contain
+            long start = Metrics.start();
+            Map<String, FileManifest.Entry> snapshot = manifest != null ? manifest.snapshot() : null;
+            writer.commit();
+            if (snapshot != null) {
+                manifest.save(snapshot);
+            }
+            lastCommitMillis = System.currentTimeMillis();
+            commitCount.incrementAndGet();
+            Metrics.record(Metric.COMMIT, start, pending + " documents");
+            logger.fine("Committed " + pending + " documents");
+        }
+    }
+
+    /**
+     * Commits if the commit policy says enough has accumulated since the last commit.
+     */
+    public void commitIfDue() throws IOException {
+        long sinceLastCommit = System.currentTimeMillis() - lastCommitMillis;
+        if (commitPolicy.shouldCommit(pendingDocuments.get(), writer.ramBytesUsed(), sinceLastCommit)) {
+            commit();
+        }
+    }
+
+    /**
+     * Adds or replaces the document for a file without committing. Safe to call from multiple threads.
+     * Files whose size and modification time, or failing that content hash, match the manifest are skipped.
+     * The hash is only computed up front when it can decide that; otherwise it is taken while indexing.
+     */
+    IndexOutcome addFile(Path filePath) throws IOException {
+        long start = Metrics.start();
+        Path file = filePath.toAbsolutePath().normalize();
+        String key = file.toString();
+        BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+        long size = attrs.size();
+        long modifiedMillis = attrs.lastModifiedTime().toMillis();
+        FileManifest.Entry previous = manifest != null ? manifest.get(key) : null;
+        if (previous != null && previous.sameMetadata(size, modifiedMillis)) {
+            Metrics.increment(Counter.FILES_UNCHANGED);
+            return IndexOutcome.UNCHANGED;
+        }
+
+        String hash = null;
+        MessageDigest digest = null;
+        if (manifest != null) {
+            // Only a file of the same size may be merely touched; anything else is hashed while it is indexed
+            if (previous != null && previous.getSize() == size) {
+                hash = FileManifest.hash(file);
+                if (previous != null && previous.getHash().equals(hash)) {
+                    // Touched but not modified: remember the new metadata so the next run skips the read
+                    manifest.put(key, new FileManifest.Entry(size, modifiedMillis, hash));
+                    manifestDirty.set(true);
+                    Metrics.increment(Counter.FILES_UNCHANGED);
+                    return IndexOutcome.UNCHANGED;
                 }
+            } else {
+                digest = FileManifest.newDigest();
+            }
+        }
+
+        int previewLength = previewChars;
+        int highlightLength = highlightChars;
+        int prefixLength = Math.max(previewLength + 1, highlightLength);
+        try (PushbackReader content = new PushbackReader(contentExtractor.open(file, digest), prefixLength)) {
+            String prefix = readPrefix(content, prefixLength);
+            Document doc = new Document();
+            doc.add(new StringField(IndexFields.ID, key, Field.Store.NO));
+            doc.add(new TextField(IndexFields.FILENAME, file.getFileName().toString(), Field.Store.YES));
+            if (previewLength > 0) {
+                doc.add(new StoredField(IndexFields.PREVIEW, truncate(prefix, previewLength + 1)));
+            }
+            // The reader is consumed by the writer, so the body is never held in memory as a whole
+            doc.add(new Field(IndexFields.CONTENT, content, CONTENT_TYPE));
+            if (highlightLength > 0) {
+                doc.add(new StoredField(IndexFields.CONTENT, truncate(prefix, highlightLength)));
             }
+            doc.add(new TextField(IndexFields.PATH, key, Field.Store.YES));
+            addMetadataFields(doc, file, size, modifiedMillis);
+            writer.updateDocument(documentKey(file), doc);
         }
+        if (digest != null) {
+            hash = FileManifest.toHex(digest);
+        }
+        if (manifest != null) {
+            manifest.put(key, new FileManifest.Entry(size, modifiedMillis, hash));
+        }
+        pendingDocuments.incrementAndGet();
+        Metrics.increment(Counter.FILES_INDEXED);
+        Metrics.record(Metric.INDEX, start, file);
+        logger.fine("Indexed: " + file.getFileName());
+        commitIfDue();
+        return previous == null ? IndexOutcome.ADDED : IndexOutcome.UPDATED;
     }
 
-    public void indexFile(Path filePath) throws IOException {
-        String content = Files.readString(filePath);
+    /**
+     * Structured fields that let searches filter and sort by extension, folder, size and date with term and
+     * point queries instead of wildcards over analyzed text.
+     */
+    private static void addMetadataFields(Document doc, Path file, long size, long modifiedMillis) {
+        String extension = FileUtil.extensionOf(file);
+        if (!extension.isEmpty()) {
+            doc.add(new KeywordField(IndexFields.EXTENSION, extension, Field.Store.YES));
+        }
+        for (Path folder = file.getParent(); folder != null; folder = folder.getParent()) {
+            doc.add(new StringField(IndexFields.FOLDER, folder.toString(), Field.Store.NO));
+        }
+        doc.add(new LongField(IndexFields.SIZE, size, Field.Store.YES));
+        doc.add(new LongField(IndexFields.MODIFIED, modifiedMillis, Field.Store.YES));
+    }
+
+    /**
+     * Reads the start of the content for the stored preview and highlight text and pushes it back for indexing.
+     */
+    private static String readPrefix(PushbackReader content, int length) throws IOException {
+        char[] buffer = new char[length];
+        int read = 0;
+        int n;
+        while (read < buffer.length && (n = content.read(buffer, read, buffer.length - read)) != -1) {
+            read += n;
+        }
+        content.unread(buffer, 0, read);
+        return new String(buffer, 0, read);
+    }
 
-        Document doc = new Document();
-        doc.add(new TextField("filename", filePath.getFileName().toString(), Field.Store.YES));
-        doc.add(new TextField("content", content, Field.Store.YES));
-        doc.add(new TextField("path", filePath.toAbsolutePath().toString(), Field.Store.YES));
-        writer.updateDocument(new Term("filename", filePath.getFileName().toString()), doc);
-        writer.commit();
-        logger.info("Indexed: " + filePath.getFileName());
+    private static String truncate(String text, int length) {
+        return text.length() > length ? text.substring(0, length) : text;
     }
 
+    private static FieldType newContentType() {
+        FieldType type = new FieldType(TextField.TYPE_NOT_STORED);
+        type.setIndexOptions(IndexOptions.DOCS_AND_FREQS_AND_POSITIONS_AND_OFFSETS);
+        type.freeze();
+        return type;
+    }
+
+    /**
+     * Key of the document for a normalized absolute path. Matches exactly one document.
+     */
+    private Term documentKey(Path file) {
+        return new Term(IndexFields.ID, file.toString());
+    }
+
+    /**
+     * Whether the index holds documents written for another {@link #SCHEMA_VERSION}, judged by the version
+     * its manifest was saved with; indexes from before the manifest count as outdated. Lucene will not
+     * change how an existing field is indexed, so such an index is dropped and rebuilt rather than
+     * updated in place. Searchers keep the old documents until the rebuild commits.
+     */
+    private boolean isOutdated(Path indexPath) throws IOException {
+        int version = manifest.getLoadedSchemaVersion();
+        if (version == SCHEMA_VERSION || !DirectoryReader.indexExists(directory)) {
+            return false;
+        }
+        logger.info("Index schema changed from v" + version + " to v" + SCHEMA_VERSION + ", rebuilding " + indexPath);
+        return true;
+    }
+
+    boolean isIndexable(Path file, String fileType) {
+        return FileUtil.matchesFileType(file, fileType);
+    }
+
+    enum IndexOutcome {
+        ADDED,
+        UPDATED,
+        UNCHANGED
+    }
+
+    /**
+     * Commits anything still pending, then closes the writer and, if this indexer opened it, the directory.
+     */
     public void close() throws IOException {
+        commit();
         writer.close();
-        directory.close();
+        // Directories handed in by the caller stay open for them to reuse
+        if (sourceDirectoryPath != null) {
+            directory.close();
+        }
     }
 
 }
@@ -1,16 +1,18 @@
 package com.lucene.indexer;
 
 import org.apache.lucene.analysis.Analyzer;
-import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
 
 import java.io.IOException;
 
 public class IndexerBuilder {
 
-    private ByteBuffersDirectory index;
+    private Directory index;
     private Analyzer analyzer;
+    private Integer workerCount;
+    private CommitPolicy commitPolicy;
 
-    public IndexerBuilder setByteBuffersDirectory(ByteBuffersDirectory index) {
+    public IndexerBuilder setDirectory(Directory index) {
         this.index = index;
         return this;
     }
@@ -20,7 +22,24 @@ public class IndexerBuilder {
         return this;
     }
 
+    public IndexerBuilder setWorkerCount(int workerCount) {
+        this.workerCount = workerCount;
+        return this;
+    }
+
+    public IndexerBuilder setCommitPolicy(CommitPolicy commitPolicy) {
+        this.commitPolicy = commitPolicy;
+        return this;
+    }
+
     public Indexer build() throws IOException {
-        return new Indexer(index, analyzer);
+        Indexer indexer = new Indexer(index, analyzer);
+        if (workerCount != null) {
+            indexer.setWorkerCount(workerCount);
+        }
+        if (commitPolicy != null) {
+            indexer.setCommitPolicy(commitPolicy);
+        }
+        return indexer;
     }
 }
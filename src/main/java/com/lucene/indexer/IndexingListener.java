@@ -0,0 +1,24 @@
+package com.lucene.indexer;
+
+/**
+ * Receives progress from {@link Indexer#indexDirectory(String, String, IndexingListener)} and can stop it early.
+ * Methods are called from the indexing threads, so implementations must be thread-safe and cheap.
+ */
+public interface IndexingListener {
+
+    IndexingListener NONE = (processed, discovered) -> {
+    };
+
+    /**
+     * Called after each file is processed. {@code discovered} keeps growing while the directory walk is running.
+     */
+    void onProgress(long processed, long discovered);
+
+    /**
+     * Polled by the walker and workers; once true, no further files are queued or indexed.
+     * Files already written are still committed.
+     */
+    default boolean isCancelled() {
+        return false;
+    }
+}
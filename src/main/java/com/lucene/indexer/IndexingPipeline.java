@@ -0,0 +1,275 @@
+package com.lucene.indexer;
+
+import com.lucene.metrics.Counter;
+import com.lucene.metrics.Metrics;
+import com.lucene.model.IndexingSummary;
+import com.lucene.util.logging.CustomLogger;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+import java.util.logging.Logger;
+
+/**
+ * Producer/consumer pipeline used by {@link Indexer#indexDirectory(String, String)} and
+ * {@link ShardedIndexer#indexDirectory(String, String)}. A single walker routes each file to the
+ * bounded queue of one indexer, and a fixed pool of workers per indexer builds and writes the
+ * documents through that indexer's shared {@code IndexWriter}. The bounded queues provide
+ * backpressure so a fast walker cannot run ahead of the workers. Once the walk is done, manifest
+ * entries under the walked root whose file is gone are deleted, so the run keeps no record of the files
+ * it visited. A cancelled run stops queueing and indexing files and skips that cleanup; deleted files
+ * stay searchable until the next complete run.
+ */
+class IndexingPipeline {
+
+    private static final Logger logger = CustomLogger.getLogger(IndexingPipeline.class.getName());
+    private static final Path POISON_PILL = Paths.get("");
+
+    private final List<Indexer> indexers;
+    private final int workerCount;
+    private final int queueCapacity;
+    private final IndexingListener listener;
+    private final ToIntFunction<Path> router;
+    private final Predicate<Path> descend;
+    private final AtomicLong filesIndexed = new AtomicLong();
+    private final AtomicLong filesSkipped = new AtomicLong();
+    private final AtomicLong filesFailed = new AtomicLong();
+    private final AtomicLong filesDiscovered = new AtomicLong();
+    private final AtomicLong bytesIndexed = new AtomicLong();
+
+    /**
+     * Pipeline for a single indexer.
+     */
+    IndexingPipeline(Indexer indexer, int workerCount, int queueCapacity, IndexingListener listener) {
+        this(List.of(indexer), workerCount, queueCapacity, listener, file -> 0, directory -> true);
+    }
+
+    /**
+     * Pipeline over several indexers.
+     *
+     * @param workerCount workers per indexer
+     * @param router      index into {@code indexers} of the indexer a file belongs to, or -1 to leave it out;
+     *                    files left out are neither indexed nor deleted as missing
+     * @param descend     whether the walker enters a directory; false prunes subtrees holding no routed files
+     */
+    IndexingPipeline(List<Indexer> indexers, int workerCount, int queueCapacity, IndexingListener listener,
+                     ToIntFunction<Path> router, Predicate<Path> descend) {
+        this.indexers = List.copyOf(indexers);
+        this.workerCount = Math.max(1, workerCount);
+        this.queueCapacity = Math.max(1, queueCapacity);
+        this.listener = listener;
+        this.router = router;
+        this.descend = descend;
+    }
+
+    IndexingSummary.Builder run(Path root, String fileType) throws IOException {
+        List<BlockingQueue<Path>> queues = new ArrayList<>(indexers.size());
+        List<ExecutorService> pools = new ArrayList<>(indexers.size());
+        ThreadFactory threadFactory = workerThreadFactory();
+        for (Indexer indexer : indexers) {
+            BlockingQueue<Path> queue = new ArrayBlockingQueue<>(queueCapacity);
+            ExecutorService workers = Executors.newFixedThreadPool(workerCount, threadFactory);
+            for (int i = 0; i < workerCount; i++) {
+                workers.execute(() -> consume(indexer, queue));
+            }
+            queues.add(queue);
+            pools.add(workers);
+        }
+
+        IOException walkFailure = null;
+        try {
+            walk(root, fileType, queues);
+        } catch (IOException e) {
+            walkFailure = e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            walkFailure = new IOException("Indexing interrupted while walking " + root, e);
+        } finally {
+            for (int i = 0; i < queues.size(); i++) {
+                try {
+                    stopWorkers(queues.get(i), pools.get(i));
+                } catch (IOException e) {
+                    if (walkFailure == null) {
+                        walkFailure = e;
+                    } else {
+                        walkFailure.addSuppressed(e);
+                    }
+                }
+            }
+        }
+        if (walkFailure != null) {
+            throw walkFailure;
+        }
+        boolean cancelled = listener.isCancelled();
+        long filesDeleted = 0;
+        if (cancelled) {
+            logger.info("Indexing of " + root + " cancelled, removal of deleted files skipped until the next full run");
+        } else {
+            for (int i = 0; i < indexers.size(); i++) {
+                filesDeleted += deleteMissing(i, root, fileType);
+            }
+        }
+
+        return new IndexingSummary.Builder()
+                .filesIndexed(filesIndexed.get())
+                .filesSkipped(filesSkipped.get())
+                .filesDeleted(filesDeleted)
+                .filesFailed(filesFailed.get())
+                .bytesIndexed(bytesIndexed.get())
+                .cancelled(cancelled);
+    }
+
+    private void walk(Path root, String fileType, List<BlockingQueue<Path>> queues)
+            throws IOException, InterruptedException {
+        Indexer first = indexers.get(0);
+        Files.walkFileTree(root, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                return dir.equals(root) || descend.test(dir) ? FileVisitResult.CONTINUE : FileVisitResult.SKIP_SUBTREE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (listener.isCancelled()) {
+                    return FileVisitResult.TERMINATE;
+                }
+                if (!attrs.isRegularFile() || !first.isIndexable(file, fileType)) {
+                    return FileVisitResult.CONTINUE;
+                }
+                int target = router.applyAsInt(file);
+                if (target >= 0) {
+                    filesDiscovered.incrementAndGet();
+                    try {
+                        queues.get(target).put(file);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return FileVisitResult.TERMINATE;
+                    }
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) {
+                logger.warning("Skipping unreadable path: " + file + " - " + e.getMessage());
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        if (Thread.interrupted()) {
+            throw new InterruptedException("Walker interrupted");
+        }
+    }
+
+    private void consume(Indexer indexer, BlockingQueue<Path> queue) {
+        while (true) {
+            Path file;
+            try {
+                file = queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (file == POISON_PILL) {
+                return;
+            }
+            if (listener.isCancelled()) {
+                // Keep draining so the walker and the poison pills are not blocked
+                continue;
+            }
+            try {
+                if (indexer.addFile(file) == Indexer.IndexOutcome.UNCHANGED) {
+                    filesSkipped.incrementAndGet();
+                } else {
+                    filesIndexed.incrementAndGet();
+                    bytesIndexed.addAndGet(sizeOf(file));
+                }
+            } catch (Exception e) {
+                filesFailed.incrementAndGet();
+                Metrics.increment(Counter.INDEX_ERRORS);
+                logger.warning("Failed to index " + file + ": " + e.getMessage());
+            }
+            listener.onProgress(filesIndexed.get() + filesSkipped.get() + filesFailed.get(), filesDiscovered.get());
+        }
+    }
+
+    private static long sizeOf(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            // The file went away after it was indexed
+            return 0;
+        }
+    }
+
+    /**
+     * Deletes the documents of manifest entries under {@code root} that belong to the target indexer but no
+     * longer name a regular file. Checked against the file system rather than the walk, which is as
+     * current and needs no set of visited paths as large as the tree.
+     */
+    private long deleteMissing(int target, Path root, String fileType) throws IOException {
+        Indexer indexer = indexers.get(target);
+        FileManifest manifest = indexer.getManifest();
+        if (manifest == null) {
+            return 0;
+        }
+        String prefix = root.toString().endsWith(File.separator) ? root.toString() : root + File.separator;
+        List<String> missing = new ArrayList<>();
+        for (String path : manifest.paths()) {
+            if (!path.startsWith(prefix)) {
+                continue;
+            }
+            Path file = Paths.get(path);
+            if (indexer.isIndexable(file, fileType) && router.applyAsInt(file) == target
+                    && !Files.isRegularFile(file, LinkOption.NOFOLLOW_LINKS)) {
+                missing.add(path);
+            }
+        }
+        for (String path : missing) {
+            indexer.deleteFile(Paths.get(path));
+        }
+        return missing.size();
+    }
+
+    private void stopWorkers(BlockingQueue<Path> queue, ExecutorService workers) throws IOException {
+        try {
+            for (int i = 0; i < workerCount; i++) {
+                queue.put(POISON_PILL);
+            }
+            workers.shutdown();
+            while (!workers.awaitTermination(1, TimeUnit.MINUTES)) {
+                logger.info("Waiting for indexing workers, " + queue.size() + " files queued");
+            }
+        } catch (InterruptedException e) {
+            workers.shutdownNow();
+            Thread.currentThread().interrupt();
+            throw new IOException("Indexing interrupted while draining workers", e);
+        }
+    }
+
+    private static ThreadFactory workerThreadFactory() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "IndexWorker-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
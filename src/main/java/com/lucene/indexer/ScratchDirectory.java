@@ -0,0 +1,138 @@
+package com.lucene.indexer;
+
+import com.lucene.util.logging.CustomLogger;
+import org.apache.lucene.store.FilterDirectory;
+import org.apache.lucene.store.MMapDirectory;
+import org.apache.lucene.store.NRTCachingDirectory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * Throwaway index for files searched without a persistent index. Segments live in memory-mapped files
+ * under a temp directory, so the scratch index is held in the page cache rather than on the Java heap.
+ * Small freshly flushed segments are kept on the heap up to a fixed budget so near-real-time reopens stay
+ * cheap; anything larger, or beyond the budget, spills to disk. Heap use is therefore bounded no matter
+ * how large the scratch index grows.
+ * <p>
+ * The temp directory is deleted on {@link #close()}, or at JVM exit if the directory was never closed.
+ * Its parent and the heap budget can be set with the {@value #PARENT_PROPERTY},
+ * {@value #MAX_CACHED_MB_PROPERTY} and {@value #MAX_MERGE_SIZE_MB_PROPERTY} system properties.
+ */
+public class ScratchDirectory extends FilterDirectory {
+
+    public static final String PARENT_PROPERTY = "lucid.scratch.dir";
+    public static final String MAX_CACHED_MB_PROPERTY = "lucid.scratch.maxCachedMB";
+    public static final String MAX_MERGE_SIZE_MB_PROPERTY = "lucid.scratch.maxMergeSizeMB";
+    public static final double DEFAULT_MAX_CACHED_MB = 32;
+    public static final double DEFAULT_MAX_MERGE_SIZE_MB = 4;
+    private static final String PREFIX = "lucid-scratch-";
+    private static final Logger logger = CustomLogger.getLogger(ScratchDirectory.class.getName());
+    private static final Set<Path> openPaths = ConcurrentHashMap.newKeySet();
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> openPaths.forEach(ScratchDirectory::deleteQuietly),
+                "ScratchDirectoryCleanup"));
+    }
+
+    private final Path path;
+    private final NRTCachingDirectory cache;
+
+    private ScratchDirectory(Path path, NRTCachingDirectory cache) {
+        super(cache);
+        this.path = path;
+        this.cache = cache;
+    }
+
+    /**
+     * Creates a scratch index in a new temp directory with the configured heap budget.
+     */
+    public static ScratchDirectory create() throws IOException {
+        String parent = System.getProperty(PARENT_PROPERTY, System.getProperty("java.io.tmpdir"));
+        return create(Paths.get(parent), doubleProperty(MAX_MERGE_SIZE_MB_PROPERTY, DEFAULT_MAX_MERGE_SIZE_MB),
+                doubleProperty(MAX_CACHED_MB_PROPERTY, DEFAULT_MAX_CACHED_MB));
+    }
+
+    /**
+     * Creates a scratch index in a new temp directory under {@code parent}.
+     *
+     * @param maxMergeSizeMB segments flushed or merged at up to this size may be kept on the heap
+     * @param maxCachedMB    total heap budget for those segments; 0 writes everything straight to disk
+     */
+    public static ScratchDirectory create(Path parent, double maxMergeSizeMB, double maxCachedMB)
+            throws IOException {
+        Files.createDirectories(parent);
+        Path path = Files.createTempDirectory(parent, PREFIX);
+        openPaths.add(path);
+        try {
+            NRTCachingDirectory cache = new NRTCachingDirectory(new MMapDirectory(path), maxMergeSizeMB, maxCachedMB);
+            logger.info("Scratch index at " + path + " (heap cache " + maxCachedMB + " MB)");
+            return new ScratchDirectory(path, cache);
+        } catch (IOException | RuntimeException e) {
+            deleteQuietly(path);
+            openPaths.remove(path);
+            throw e;
+        }
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Bytes of segments currently held on the heap rather than on disk.
+     */
+    public long getCachedBytes() {
+        return cache.ramBytesUsed();
+    }
+
+    /**
+     * Closes the index and deletes its temp directory.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            super.close();
+        } finally {
+            deleteQuietly(path);
+            openPaths.remove(path);
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        if (!Files.exists(path)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(path)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(p -> {
+                try {
+                    Files.deleteIfExists(p);
+                } catch (IOException e) {
+                    logger.warning("Failed to delete scratch file " + p + ": " + e.getMessage());
+                }
+            });
+        } catch (IOException e) {
+            logger.warning("Failed to delete scratch index " + path + ": " + e.getMessage());
+        }
+    }
+
+    private static double doubleProperty(String name, double defaultValue) {
+        String value = System.getProperty(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            logger.warning("Ignoring invalid " + name + "=" + value);
+            return defaultValue;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.lucene.indexer;
+
+import java.nio.file.Path;
+
+/**
+ * How {@link ShardedIndexer} assigns files to shards. Routing depends only on the file's path
+ * relative to the source directory, so a file always lands in the same shard.
+ */
+public enum ShardRouting {
+    /**
+     * Spreads files evenly by a hash of their relative path.
+     */
+    HASH,
+    /**
+     * Keeps each top-level subdirectory of the source directory in one shard, so changes under a
+     * subtree touch a single shard. Files directly in the source directory share a shard.
+     */
+    SUBTREE;
+
+    public static final ShardRouting DEFAULT = HASH;
+
+    public int shardFor(Path root, Path file, int shardCount) {
+        if (shardCount <= 1) {
+            return 0;
+        }
+        String key;
+        if (file.startsWith(root)) {
+            Path relative = root.relativize(file);
+            key = this == SUBTREE
+                    ? (relative.getNameCount() > 1 ? relative.getName(0).toString() : "")
+                    : relative.toString();
+        } else {
+            key = file.toString();
+        }
+        // String.hashCode is specified, so routing is stable across runs
+        return Math.floorMod(key.hashCode(), shardCount);
+    }
+
+    /**
+     * Whether files under {@code directory} can be routed to {@code shard}. Only {@link #SUBTREE} routing
+     * can rule a directory out, by its top-level subdirectory.
+     */
+    public boolean mayContain(Path root, Path directory, int shard, int shardCount) {
+        if (this != SUBTREE || directory.equals(root) || !directory.startsWith(root)) {
+            return true;
+        }
+        // Any file below the top-level subdirectory routes the same way
+        return shardFor(root, directory.resolve("_"), shardCount) == shard;
+    }
+
+    public static ShardRouting fromName(String name) {
+        for (ShardRouting routing : values()) {
+            if (routing.name().equalsIgnoreCase(name)) {
+                return routing;
+            }
+        }
+        throw new IllegalArgumentException("Unknown shard routing: " + name);
+    }
+}
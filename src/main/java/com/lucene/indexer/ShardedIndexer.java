@@ -0,0 +1,250 @@
+package com.lucene.indexer;
+
+import com.lucene.model.IndexingSummary;
+import com.lucene.util.FileUtil;
+import com.lucene.util.logging.CustomLogger;
+import org.apache.lucene.util.IOUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * Splits a source directory's index into several sub-indexes stored as
+ * "LucidSearch/data/[encoded-directory-name]-shards/shard-[n]", each with its own writer and manifest.
+ * Files are assigned to shards by {@link ShardRouting}. A directory run walks the tree once and
+ * routes each file to its shard's workers, so all shards are indexed in parallel; a single shard can
+ * be rebuilt on its own with {@link #indexShard}.
+ * <p>
+ * The shard count and routing are saved in {@link IndexSettings}; opening the index with a different
+ * layout rebuilds every shard from scratch. Searchers pick the shards up from the saved settings.
+ */
+public class ShardedIndexer {
+
+    private static final Logger logger = CustomLogger.getLogger(ShardedIndexer.class.getName());
+
+    private final String sourceDirectoryPath;
+    private final Path root;
+    private final ShardRouting routing;
+    private final Indexer[] shards;
+    private final int workersPerShard;
+
+    /**
+     * Opens the shards of a directory whose index is already sharded, with its saved settings.
+     */
+    public ShardedIndexer(String sourceDirectoryPath) throws IOException {
+        this(sourceDirectoryPath, requireSharded(sourceDirectoryPath));
+    }
+
+    /**
+     * Opens or creates the shards of a directory's index with the given layout and profile, which
+     * are saved so later indexers and searchers reopen the index the same way.
+     */
+    public ShardedIndexer(String sourceDirectoryPath, IndexProfile profile, int shardCount, ShardRouting routing)
+            throws IOException {
+        this(sourceDirectoryPath, shardedSettings(sourceDirectoryPath, profile, shardCount, routing));
+    }
+
+    private ShardedIndexer(String sourceDirectoryPath, Layout layout) throws IOException {
+        this.sourceDirectoryPath = sourceDirectoryPath;
+        this.root = Paths.get(sourceDirectoryPath).toAbsolutePath().normalize();
+        IndexSettings settings = layout.settings();
+        this.routing = settings.getShardRouting();
+        this.shards = new Indexer[settings.getShardCount()];
+        this.workersPerShard = Math.max(1, Runtime.getRuntime().availableProcessors() / shards.length);
+        try {
+            for (int shard = 0; shard < shards.length; shard++) {
+                shards[shard] = new Indexer(sourceDirectoryPath, FileUtil.getShardIndexPath(sourceDirectoryPath, shard),
+                        settings, layout.rebuild());
+                shards[shard].setWorkerCount(workersPerShard);
+            }
+        } catch (IOException | RuntimeException e) {
+            for (Indexer shard : shards) {
+                if (shard != null) {
+                    shard.close();
+                }
+            }
+            throw e;
+        }
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    public Indexer getShard(int shard) {
+        return shards[shard];
+    }
+
+    public int shardFor(Path file) {
+        return routing.shardFor(root, file.toAbsolutePath().normalize(), shards.length);
+    }
+
+    public void setCommitPolicy(CommitPolicy commitPolicy) {
+        for (Indexer shard : shards) {
+            shard.setCommitPolicy(commitPolicy);
+        }
+    }
+
+    public IndexingSummary indexDirectory(String directoryPath, String fileType) throws IOException {
+        return indexDirectory(directoryPath, fileType, IndexingListener.NONE);
+    }
+
+    /**
+     * Indexes every supported file under the given directory in a single walk that hands each file
+     * to the workers of its shard, then commits every shard.
+     */
+    public IndexingSummary indexDirectory(String directoryPath, String fileType, IndexingListener listener)
+            throws IOException {
+        IndexingPipeline pipeline = new IndexingPipeline(List.of(shards), workersPerShard,
+                Indexer.DEFAULT_QUEUE_CAPACITY, listener, this::shardFor, directory -> true);
+        IndexingSummary result = run(pipeline, directoryPath, fileType);
+        IndexSettings.recordFileType(sourceDirectoryPath, fileType);
+        logger.info("Indexed directory " + directoryPath + " into " + shards.length + " shards: " + result);
+        return result;
+    }
+
+    /**
+     * Re-indexes only the files of one shard, leaving the others untouched. With
+     * {@link ShardRouting#SUBTREE} routing the walk skips the subtrees of other shards entirely.
+     */
+    public IndexingSummary indexShard(int shard, String fileType, IndexingListener listener) throws IOException {
+        IndexingPipeline pipeline = new IndexingPipeline(List.of(shards[shard]),
+                Math.max(1, Runtime.getRuntime().availableProcessors()), Indexer.DEFAULT_QUEUE_CAPACITY, listener,
+                file -> shardFor(file) == shard ? 0 : -1,
+                directory -> routing.mayContain(root, directory.toAbsolutePath().normalize(), shard, shards.length));
+        IndexingSummary result = run(pipeline, sourceDirectoryPath, fileType);
+        logger.info("Indexed shard " + shard + " of " + sourceDirectoryPath + ": " + result);
+        return result;
+    }
+
+    private IndexingSummary run(IndexingPipeline pipeline, String directoryPath, String fileType) throws IOException {
+        Path docDir = Paths.get(directoryPath).toAbsolutePath().normalize();
+        if (!Files.isDirectory(docDir)) {
+            throw new IOException(directoryPath + " is not a valid directory");
+        }
+        long start = System.currentTimeMillis();
+        int commitsBefore = commitCount();
+        IndexingSummary.Builder summary = pipeline.run(docDir, fileType);
+        commit();
+        return summary
+                .commits(commitCount() - commitsBefore)
+                .elapsedMillis(System.currentTimeMillis() - start)
+                .build();
+    }
+
+    private int commitCount() {
+        int count = 0;
+        for (Indexer shard : shards) {
+            count += shard.getCommitCount();
+        }
+        return count;
+    }
+
+    public void indexFile(Path filePath) throws IOException {
+        shards[shardFor(filePath)].indexFile(filePath);
+    }
+
+    public void deleteFile(Path filePath) throws IOException {
+        shards[shardFor(filePath)].deleteFile(filePath);
+    }
+
+    /**
+     * Removes a file or directory from every shard, since a directory's files may be spread over all of them.
+     */
+    public void deletePath(Path path) throws IOException {
+        for (Indexer shard : shards) {
+            shard.deletePath(path);
+        }
+    }
+
+    public void deleteAll() throws IOException {
+        for (Indexer shard : shards) {
+            shard.deleteAll();
+        }
+    }
+
+    public void commit() throws IOException {
+        for (Indexer shard : shards) {
+            shard.commit();
+        }
+    }
+
+    public void commitIfDue() throws IOException {
+        for (Indexer shard : shards) {
+            shard.commitIfDue();
+        }
+    }
+
+    /**
+     * Commits and closes every shard, even if closing one of them fails.
+     */
+    public void close() throws IOException {
+        IOException failure = null;
+        for (Indexer shard : shards) {
+            try {
+                shard.close();
+            } catch (IOException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Deletes shard indexes {@code from} (inclusive) to {@code to} (exclusive) of a directory.
+     */
+    static void deleteShards(String sourceDirectoryPath, int from, int to) throws IOException {
+        for (int shard = from; shard < to; shard++) {
+            IOUtils.rm(FileUtil.getShardIndexPath(sourceDirectoryPath, shard));
+        }
+    }
+
+    private static Layout requireSharded(String sourceDirectoryPath) throws IOException {
+        IndexSettings settings = IndexSettings.load(sourceDirectoryPath);
+        if (!settings.isSharded()) {
+            throw new IOException("The index of " + sourceDirectoryPath + " is not sharded; open it with Indexer");
+        }
+        return new Layout(settings, false);
+    }
+
+    private static Layout shardedSettings(String sourceDirectoryPath, IndexProfile profile, int shardCount,
+                                          ShardRouting routing) throws IOException {
+        if (shardCount < 2) {
+            throw new IllegalArgumentException("A sharded index needs at least 2 shards, got " + shardCount);
+        }
+        IndexSettings settings = IndexSettings.load(sourceDirectoryPath);
+        int previousCount = settings.getShardCount();
+        boolean rebuild = previousCount != shardCount || settings.getShardRouting() != routing;
+        boolean changed = rebuild || settings.getProfile() != profile;
+        if (rebuild) {
+            logger.info("Shard layout of " + sourceDirectoryPath + " changed to " + shardCount + " x " + routing
+                    + ", rebuilding the index");
+            if (previousCount == 1) {
+                // The single index is replaced by the shards, which live in their own directory
+                IOUtils.rm(FileUtil.getIndexPath(sourceDirectoryPath));
+            } else {
+                deleteShards(sourceDirectoryPath, shardCount, previousCount);
+            }
+        }
+        settings.setProfile(profile);
+        settings.setShardCount(shardCount);
+        settings.setShardRouting(routing);
+        if (changed) {
+            settings.save(sourceDirectoryPath);
+        }
+        return new Layout(settings, rebuild);
+    }
+
+    private record Layout(IndexSettings settings, boolean rebuild) {
+    }
+}
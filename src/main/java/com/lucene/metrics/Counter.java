@@ -0,0 +1,14 @@
+package com.lucene.metrics;
+
+/**
+ * Event counts kept alongside the latency histograms in {@link Metrics}.
+ */
+public enum Counter {
+    FILES_INDEXED,
+    FILES_UNCHANGED,
+    FILES_DELETED,
+    INDEX_ERRORS,
+    SEARCH_HITS,
+    QUERY_CACHE_HITS,
+    QUERY_CACHE_MISSES
+}
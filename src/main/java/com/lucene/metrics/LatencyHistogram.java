@@ -0,0 +1,167 @@
+package com.lucene.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram over nanosecond values, bucketed the way HdrHistogram does:
+ * each power of two is split into {@code 2^SUB_BUCKET_BITS} linear sub-buckets, so every
+ * recorded value is reported within about 1% of its true value across the whole range.
+ * Recording is a few atomic increments and never blocks.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(bucketIndex(value));
+        sum.add(value);
+        max.accumulateAndGet(value, Math::max);
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts.set(i, 0);
+        }
+        sum.reset();
+        max.set(0);
+    }
+
+    /**
+     * Reads the histogram into an immutable summary. Values recorded while the snapshot is taken
+     * may or may not be included.
+     */
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            copy[i] = counts.get(i);
+            total += copy[i];
+        }
+        long maxValue = max.get();
+        long totalNanos = sum.sum();
+        // Bucket bounds can overshoot the largest value actually recorded
+        return new Snapshot(total, totalNanos, total == 0 ? 0 : totalNanos / total, maxValue,
+                Math.min(maxValue, percentile(copy, total, 0.50)), Math.min(maxValue, percentile(copy, total, 0.90)),
+                Math.min(maxValue, percentile(copy, total, 0.99)), Math.min(maxValue, percentile(copy, total, 0.999)));
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) - SUB_BUCKET_COUNT;
+        return (shift + 1) * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    /**
+     * Highest value that falls into the given bucket.
+     */
+    static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = index / SUB_BUCKET_COUNT - 1;
+        long subBucket = index % SUB_BUCKET_COUNT;
+        long lower = (SUB_BUCKET_COUNT + subBucket) << shift;
+        return lower + (1L << shift) - 1;
+    }
+
+    private static long percentile(long[] counts, long total, double quantile) {
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return bucketUpperBound(i);
+            }
+        }
+        return bucketUpperBound(counts.length - 1);
+    }
+
+    /**
+     * Point-in-time summary of a histogram. All latencies are in nanoseconds.
+     */
+    public static final class Snapshot {
+
+        private final long count;
+        private final long totalNanos;
+        private final long meanNanos;
+        private final long maxNanos;
+        private final long p50Nanos;
+        private final long p90Nanos;
+        private final long p99Nanos;
+        private final long p999Nanos;
+
+        Snapshot(long count, long totalNanos, long meanNanos, long maxNanos, long p50Nanos, long p90Nanos,
+                 long p99Nanos, long p999Nanos) {
+            this.count = count;
+            this.totalNanos = totalNanos;
+            this.meanNanos = meanNanos;
+            this.maxNanos = maxNanos;
+            this.p50Nanos = p50Nanos;
+            this.p90Nanos = p90Nanos;
+            this.p99Nanos = p99Nanos;
+            this.p999Nanos = p999Nanos;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * Sum of all recorded values, exact rather than derived from the rounded mean.
+         */
+        public long getTotalNanos() {
+            return totalNanos;
+        }
+
+        public long getMeanNanos() {
+            return meanNanos;
+        }
+
+        public long getMaxNanos() {
+            return maxNanos;
+        }
+
+        public long getP50Nanos() {
+            return p50Nanos;
+        }
+
+        public long getP90Nanos() {
+            return p90Nanos;
+        }
+
+        public long getP99Nanos() {
+            return p99Nanos;
+        }
+
+        public long getP999Nanos() {
+            return p999Nanos;
+        }
+
+        @Override
+        public String toString() {
+            return "count=" + count + ", mean=" + micros(meanNanos) + ", p50=" + micros(p50Nanos)
+                    + ", p90=" + micros(p90Nanos) + ", p99=" + micros(p99Nanos)
+                    + ", p99.9=" + micros(p999Nanos) + ", max=" + micros(maxNanos);
+        }
+
+        private static String micros(long nanos) {
+            return String.format("%.1fus", nanos / 1000.0);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.lucene.metrics;
+
+/**
+ * Timed operations. Each has its own latency histogram in {@link Metrics}.
+ */
+public enum Metric {
+    /**
+     * Extracting and adding or updating a single document. Files skipped as unchanged are not timed.
+     */
+    INDEX,
+    /**
+     * Deleting a file, or a directory's files, from the index.
+     */
+    DELETE,
+    COMMIT,
+    /**
+     * Reopening a searcher that found changes. Refreshes that find nothing new are not timed.
+     */
+    REFRESH,
+    SEARCH
+}
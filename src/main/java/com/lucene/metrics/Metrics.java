@@ -0,0 +1,102 @@
+package com.lucene.metrics;
+
+import com.lucene.util.logging.CustomLogger;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * Process-wide latency histograms and counters for indexing and search.
+ * <p>
+ * Timing a call costs two {@code System.nanoTime()} reads and a few atomic increments:
+ * <pre>{@code
+ * long start = Metrics.start();
+ * ...
+ * Metrics.record(Metric.SEARCH, start, query);
+ * }</pre>
+ * A sampled fraction of recorded calls can also be traced to the log together with their
+ * detail object, which is only turned into a string when traced. Tracing is off by default;
+ * set the {@code lucid.metrics.traceSampleRate} system property or call
+ * {@link #setTraceSampleRate(double)} to enable it.
+ */
+public final class Metrics {
+
+    private static final Logger logger = CustomLogger.getLogger(Metrics.class.getName());
+    private static final Map<Metric, LatencyHistogram> HISTOGRAMS = new EnumMap<>(Metric.class);
+    private static final Map<Counter, LongAdder> COUNTERS = new EnumMap<>(Counter.class);
+    private static volatile double traceSampleRate = Double.parseDouble(
+            System.getProperty("lucid.metrics.traceSampleRate", "0"));
+
+    static {
+        // Populated once up front, so lookups never mutate the maps
+        for (Metric metric : Metric.values()) {
+            HISTOGRAMS.put(metric, new LatencyHistogram());
+        }
+        for (Counter counter : Counter.values()) {
+            COUNTERS.put(counter, new LongAdder());
+        }
+    }
+
+    private Metrics() {
+        // Prevent instantiation
+    }
+
+    public static long start() {
+        return System.nanoTime();
+    }
+
+    public static void record(Metric metric, long startNanos) {
+        record(metric, startNanos, null);
+    }
+
+    /**
+     * Records the time since {@code startNanos}, tracing it with {@code detail} if sampled.
+     */
+    public static void record(Metric metric, long startNanos, Object detail) {
+        long elapsed = System.nanoTime() - startNanos;
+        HISTOGRAMS.get(metric).record(elapsed);
+        double rate = traceSampleRate;
+        if (rate > 0 && (rate >= 1 || ThreadLocalRandom.current().nextDouble() < rate)) {
+            logger.info(metric + " took " + String.format("%.1fus", elapsed / 1000.0)
+                    + (detail != null ? " [" + detail + "]" : ""));
+        }
+    }
+
+    public static void increment(Counter counter) {
+        COUNTERS.get(counter).increment();
+    }
+
+    public static void add(Counter counter, long delta) {
+        COUNTERS.get(counter).add(delta);
+    }
+
+    /**
+     * Sets the fraction of recorded calls that are traced to the log, from 0 (off) to 1 (all).
+     */
+    public static void setTraceSampleRate(double rate) {
+        if (rate < 0 || rate > 1) {
+            throw new IllegalArgumentException("Trace sample rate must be between 0 and 1: " + rate);
+        }
+        traceSampleRate = rate;
+    }
+
+    public static double getTraceSampleRate() {
+        return traceSampleRate;
+    }
+
+    public static MetricsSnapshot snapshot() {
+        Map<Metric, LatencyHistogram.Snapshot> latencies = new EnumMap<>(Metric.class);
+        HISTOGRAMS.forEach((metric, histogram) -> latencies.put(metric, histogram.snapshot()));
+        Map<Counter, Long> counts = new EnumMap<>(Counter.class);
+        COUNTERS.forEach((counter, adder) -> counts.put(counter, adder.sum()));
+        return new MetricsSnapshot(latencies, counts);
+    }
+
+    public static void reset() {
+        HISTOGRAMS.values().forEach(LatencyHistogram::reset);
+        COUNTERS.values().forEach(LongAdder::reset);
+    }
+}
@@ -0,0 +1,42 @@
+package com.lucene.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Immutable view of all histograms and counters at one point in time.
+ */
+public class MetricsSnapshot {
+
+    private final Map<Metric, LatencyHistogram.Snapshot> latencies;
+    private final Map<Counter, Long> counters;
+
+    MetricsSnapshot(Map<Metric, LatencyHistogram.Snapshot> latencies, Map<Counter, Long> counters) {
+        this.latencies = Collections.unmodifiableMap(latencies);
+        this.counters = Collections.unmodifiableMap(counters);
+    }
+
+    public LatencyHistogram.Snapshot getLatency(Metric metric) {
+        return latencies.get(metric);
+    }
+
+    public long getCount(Counter counter) {
+        return counters.get(counter);
+    }
+
+    public Map<Metric, LatencyHistogram.Snapshot> getLatencies() {
+        return latencies;
+    }
+
+    public Map<Counter, Long> getCounters() {
+        return counters;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        latencies.forEach((metric, latency) -> sb.append(metric).append(": ").append(latency).append("\n"));
+        counters.forEach((counter, count) -> sb.append(counter).append(": ").append(count).append("\n"));
+        return sb.toString();
+    }
+}
@@ -0,0 +1,133 @@
+package com.lucene.model;
+
+/**
+ * Outcome of a single directory indexing run.
+ */
+public class IndexingSummary {
+
+    private final long filesIndexed;
+    private final long filesSkipped;
+    private final long filesDeleted;
+    private final long filesFailed;
+    private final long bytesIndexed;
+    private final long elapsedMillis;
+    private final int commits;
+    private final boolean cancelled;
+
+    public IndexingSummary(long filesIndexed, long filesSkipped, long filesDeleted, long filesFailed,
+                           long bytesIndexed, long elapsedMillis, int commits, boolean cancelled) {
+        this.filesIndexed = filesIndexed;
+        this.filesSkipped = filesSkipped;
+        this.filesDeleted = filesDeleted;
+        this.filesFailed = filesFailed;
+        this.bytesIndexed = bytesIndexed;
+        this.elapsedMillis = elapsedMillis;
+        this.commits = commits;
+        this.cancelled = cancelled;
+    }
+
+    public long getFilesIndexed() {
+        return filesIndexed;
+    }
+
+    /**
+     * Files left alone because the manifest showed them unchanged.
+     */
+    public long getFilesSkipped() {
+        return filesSkipped;
+    }
+
+    public long getFilesDeleted() {
+        return filesDeleted;
+    }
+
+    public long getFilesFailed() {
+        return filesFailed;
+    }
+
+    /**
+     * Total size of the files that were added or updated; unchanged files are not counted.
+     */
+    public long getBytesIndexed() {
+        return bytesIndexed;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public int getCommits() {
+        return commits;
+    }
+
+    /**
+     * True if the run was stopped before every file was visited; missing files were not cleaned up.
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    @Override
+    public String toString() {
+        return "indexed=" + filesIndexed + ", unchanged=" + filesSkipped + ", deleted=" + filesDeleted
+                + ", failed=" + filesFailed + ", commits=" + commits
+                + ", elapsed=" + elapsedMillis + "ms" + (cancelled ? ", cancelled" : "");
+    }
+
+    public static class Builder {
+
+        private long filesIndexed = 0;
+        private long filesSkipped = 0;
+        private long filesDeleted = 0;
+        private long filesFailed = 0;
+        private long bytesIndexed = 0;
+        private long elapsedMillis = 0;
+        private int commits = 0;
+        private boolean cancelled = false;
+
+        public Builder filesIndexed(long filesIndexed) {
+            this.filesIndexed = filesIndexed;
+            return this;
+        }
+
+        public Builder filesSkipped(long filesSkipped) {
+            this.filesSkipped = filesSkipped;
+            return this;
+        }
+
+        public Builder filesDeleted(long filesDeleted) {
+            this.filesDeleted = filesDeleted;
+            return this;
+        }
+
+        public Builder filesFailed(long filesFailed) {
+            this.filesFailed = filesFailed;
+            return this;
+        }
+
+        public Builder bytesIndexed(long bytesIndexed) {
+            this.bytesIndexed = bytesIndexed;
+            return this;
+        }
+
+        public Builder elapsedMillis(long elapsedMillis) {
+            this.elapsedMillis = elapsedMillis;
+            return this;
+        }
+
+        public Builder commits(int commits) {
+            this.commits = commits;
+            return this;
+        }
+
+        public Builder cancelled(boolean cancelled) {
+            this.cancelled = cancelled;
+            return this;
+        }
+
+        public IndexingSummary build() {
+            return new IndexingSummary(filesIndexed, filesSkipped, filesDeleted, filesFailed, bytesIndexed,
+                    elapsedMillis, commits, cancelled);
+        }
+    }
+}
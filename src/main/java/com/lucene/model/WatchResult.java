@@ -19,6 +19,26 @@ public class WatchResult {
         this.eventType = eventType;
     }
 
+    public String getFileName() {
+        return fileName;
+    }
+
+    public String getFilePath() {
+        return filePath;
+    }
+
+    public float getScore() {
+        return score;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public String getEventType() {
+        return eventType;
+    }
+
     @Override
     public String toString() {
         return "[" + eventType + "]    " + fileName + "    ||   " + filePath + "\n";
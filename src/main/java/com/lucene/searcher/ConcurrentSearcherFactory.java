@@ -0,0 +1,99 @@
+package com.lucene.searcher;
+
+import com.lucene.util.logging.CustomLogger;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.SearcherFactory;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * Creates the {@link IndexSearcher}s for every {@link Searcher}, backed by one executor shared
+ * across all of them so that a query's segments are searched in parallel. Segments are grouped
+ * into slices of at most {@code maxDocsPerSlice} documents and {@code maxSegmentsPerSlice}
+ * segments; each slice is one task, so small indexes still search on a single thread.
+ * <p>
+ * Configured with system properties, read when the first searcher is opened:
+ * {@value #THREADS_PROPERTY} (defaults to the number of cores; 1 or less searches sequentially),
+ * {@value #MAX_DOCS_PER_SLICE_PROPERTY} and {@value #MAX_SEGMENTS_PER_SLICE_PROPERTY}.
+ */
+class ConcurrentSearcherFactory extends SearcherFactory {
+
+    static final String THREADS_PROPERTY = "lucid.search.threads";
+    static final String MAX_DOCS_PER_SLICE_PROPERTY = "lucid.search.maxDocsPerSlice";
+    static final String MAX_SEGMENTS_PER_SLICE_PROPERTY = "lucid.search.maxSegmentsPerSlice";
+    static final int DEFAULT_MAX_DOCS_PER_SLICE = 250_000;
+    static final int DEFAULT_MAX_SEGMENTS_PER_SLICE = 5;
+
+    private static final Logger logger = CustomLogger.getLogger(ConcurrentSearcherFactory.class.getName());
+    private static ConcurrentSearcherFactory shared;
+
+    private final Executor executor;
+    private final int maxDocsPerSlice;
+    private final int maxSegmentsPerSlice;
+
+    ConcurrentSearcherFactory(Executor executor, int maxDocsPerSlice, int maxSegmentsPerSlice) {
+        this.executor = executor;
+        this.maxDocsPerSlice = Math.max(1, maxDocsPerSlice);
+        this.maxSegmentsPerSlice = Math.max(1, maxSegmentsPerSlice);
+    }
+
+    /**
+     * Returns the factory configured from system properties, creating its executor on first use.
+     */
+    static synchronized ConcurrentSearcherFactory shared() {
+        if (shared == null) {
+            int threads = Integer.getInteger(THREADS_PROPERTY, Runtime.getRuntime().availableProcessors());
+            int maxDocs = Integer.getInteger(MAX_DOCS_PER_SLICE_PROPERTY, DEFAULT_MAX_DOCS_PER_SLICE);
+            int maxSegments = Integer.getInteger(MAX_SEGMENTS_PER_SLICE_PROPERTY, DEFAULT_MAX_SEGMENTS_PER_SLICE);
+            shared = new ConcurrentSearcherFactory(threads > 1 ? newExecutor(threads) : null, maxDocs, maxSegments);
+            logger.info("Search threads: " + Math.max(1, threads) + ", slices of at most " + maxDocs
+                    + " docs / " + maxSegments + " segments");
+        }
+        return shared;
+    }
+
+    @Override
+    public IndexSearcher newSearcher(IndexReader reader, IndexReader previousReader) {
+        if (executor == null) {
+            return new IndexSearcher(reader);
+        }
+        return new SlicedIndexSearcher(reader, executor, maxDocsPerSlice, maxSegmentsPerSlice);
+    }
+
+    private static ExecutorService newExecutor(int threads) {
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "SearchWorker-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Applies the configured slice limits in place of Lucene's built-in ones.
+     */
+    private static class SlicedIndexSearcher extends IndexSearcher {
+
+        private final int maxDocsPerSlice;
+        private final int maxSegmentsPerSlice;
+
+        SlicedIndexSearcher(IndexReader reader, Executor executor, int maxDocsPerSlice, int maxSegmentsPerSlice) {
+            super(reader, executor);
+            this.maxDocsPerSlice = maxDocsPerSlice;
+            this.maxSegmentsPerSlice = maxSegmentsPerSlice;
+        }
+
+        @Override
+        protected LeafSlice[] slices(List<LeafReaderContext> leaves) {
+            // Computed lazily on first use, after the limits above are set
+            return slices(leaves, maxDocsPerSlice, maxSegmentsPerSlice);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.lucene.searcher;
+
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.MultiReader;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.ReferenceManager;
+import org.apache.lucene.search.SearcherFactory;
+import org.apache.lucene.store.Directory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link ReferenceManager} over a {@link MultiReader} that combines the latest commits of several
+ * indexes, so one query searches all of them with statistics computed across every index. A refresh
+ * reopens only the indexes that changed and rebuilds the combined reader around them; the other
+ * sub-readers are shared with the previous one.
+ */
+class MultiReaderManager extends ReferenceManager<IndexSearcher> {
+
+    private final SearcherFactory searcherFactory;
+    /**
+     * Current sub-readers. The manager holds one reference to each; refresh is serialized by the base class.
+     */
+    private List<DirectoryReader> subReaders;
+
+    MultiReaderManager(List<Directory> directories, SearcherFactory searcherFactory) throws IOException {
+        this.searcherFactory = searcherFactory;
+        List<DirectoryReader> readers = new ArrayList<>(directories.size());
+        try {
+            for (Directory directory : directories) {
+                readers.add(DirectoryReader.open(directory));
+            }
+            this.current = newSearcher(readers);
+        } catch (IOException | RuntimeException e) {
+            for (DirectoryReader reader : readers) {
+                reader.decRef();
+            }
+            throw e;
+        }
+        this.subReaders = readers;
+    }
+
+    @Override
+    protected void decRef(IndexSearcher reference) throws IOException {
+        reference.getIndexReader().decRef();
+    }
+
+    @Override
+    protected IndexSearcher refreshIfNeeded(IndexSearcher referenceToRefresh) throws IOException {
+        List<DirectoryReader> refreshed = new ArrayList<>(subReaders.size());
+        boolean changed = false;
+        try {
+            for (DirectoryReader reader : subReaders) {
+                DirectoryReader newReader = DirectoryReader.openIfChanged(reader);
+                changed |= newReader != null;
+                refreshed.add(newReader != null ? newReader : reader);
+            }
+            if (!changed) {
+                return null;
+            }
+            IndexSearcher searcher = newSearcher(refreshed);
+            // The manager's reference moves from each replaced reader to its replacement
+            for (int i = 0; i < subReaders.size(); i++) {
+                if (refreshed.get(i) != subReaders.get(i)) {
+                    subReaders.get(i).decRef();
+                }
+            }
+            subReaders = refreshed;
+            return searcher;
+        } catch (IOException | RuntimeException e) {
+            for (int i = 0; i < refreshed.size(); i++) {
+                if (refreshed.get(i) != subReaders.get(i)) {
+                    refreshed.get(i).decRef();
+                }
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    protected boolean tryIncRef(IndexSearcher reference) {
+        return reference.getIndexReader().tryIncRef();
+    }
+
+    @Override
+    protected int getRefCount(IndexSearcher reference) {
+        return reference.getIndexReader().getRefCount();
+    }
+
+    @Override
+    protected void afterClose() throws IOException {
+        for (DirectoryReader reader : subReaders) {
+            reader.decRef();
+        }
+    }
+
+    private IndexSearcher newSearcher(List<DirectoryReader> readers) throws IOException {
+        CombinedReader reader = new CombinedReader(readers.toArray(new DirectoryReader[0]));
+        try {
+            return searcherFactory.newSearcher(reader, null);
+        } catch (IOException | RuntimeException e) {
+            reader.decRef();
+            throw e;
+        }
+    }
+
+    /**
+     * Multi-reader that takes its own reference to each sub-reader and exposes a version that
+     * grows whenever any of them is reopened, for use as a cache key.
+     */
+    static class CombinedReader extends MultiReader {
+
+        private final long version;
+
+        CombinedReader(DirectoryReader[] subReaders) throws IOException {
+            super(subReaders, false);
+            long sum = 0;
+            for (DirectoryReader subReader : subReaders) {
+                sum += subReader.getVersion();
+            }
+            this.version = sum;
+        }
+
+        long getVersion() {
+            return version;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.lucene.searcher;
+
+import com.lucene.metrics.Counter;
+import com.lucene.metrics.Metrics;
+import com.lucene.model.WatchResult;
+import org.apache.lucene.search.Query;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded LRU caches for a {@link Searcher}: parsed queries keyed by normalized query string,
+ * and top-N results keyed by normalized query string, result count and reader version.
+ * <p>
+ * Parsed queries do not depend on the index and are kept until evicted. Results are tied to
+ * the reader version they were computed against, so a result computed on an older reader is
+ * never served after a refresh; {@link #invalidateResults()} drops them all when the reader changes.
+ */
+public class QueryCache {
+
+    public static final int DEFAULT_CAPACITY = 256;
+    /**
+     * Longer result lists are not cached, bounding the heap a single entry can hold.
+     */
+    static final int MAX_CACHED_HITS = 1000;
+
+    private final int capacity;
+    private final Map<String, Query> queries;
+    private final Map<ResultKey, List<WatchResult>> results;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    QueryCache(int capacity) {
+        this.capacity = capacity;
+        this.queries = lruMap(capacity);
+        this.results = lruMap(capacity);
+    }
+
+    boolean isEnabled() {
+        return capacity > 0;
+    }
+
+    /**
+     * Collapses whitespace so that queries differing only in spacing share entries.
+     */
+    static String normalize(String queryString) {
+        return queryString.trim().replaceAll("\\s+", " ");
+    }
+
+    Query getQuery(String normalizedQuery) {
+        synchronized (queries) {
+            return queries.get(normalizedQuery);
+        }
+    }
+
+    void putQuery(String normalizedQuery, Query query) {
+        synchronized (queries) {
+            queries.put(normalizedQuery, query);
+        }
+    }
+
+    List<WatchResult> getResults(String normalizedQuery, int maxResults, long readerVersion) {
+        List<WatchResult> cached;
+        synchronized (results) {
+            cached = results.get(new ResultKey(normalizedQuery, maxResults, readerVersion));
+        }
+        if (cached != null) {
+            hits.increment();
+            Metrics.increment(Counter.QUERY_CACHE_HITS);
+        } else {
+            misses.increment();
+            Metrics.increment(Counter.QUERY_CACHE_MISSES);
+        }
+        return cached;
+    }
+
+    void putResults(String normalizedQuery, int maxResults, long readerVersion, List<WatchResult> hitList) {
+        if (hitList.size() > MAX_CACHED_HITS) {
+            return;
+        }
+        synchronized (results) {
+            results.put(new ResultKey(normalizedQuery, maxResults, readerVersion), List.copyOf(hitList));
+        }
+    }
+
+    void invalidateResults() {
+        synchronized (results) {
+            results.clear();
+        }
+        invalidations.increment();
+    }
+
+    Stats stats() {
+        int size;
+        synchronized (results) {
+            size = results.size();
+        }
+        return new Stats(capacity, size, hits.sum(), misses.sum(), invalidations.sum());
+    }
+
+    private static <K, V> Map<K, V> lruMap(int capacity) {
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    private record ResultKey(String query, int maxResults, long readerVersion) {
+    }
+
+    /**
+     * Result cache counters since the searcher was opened.
+     */
+    public static final class Stats {
+
+        private final int capacity;
+        private final int size;
+        private final long hits;
+        private final long misses;
+        private final long invalidations;
+
+        Stats(int capacity, int size, long hits, long misses, long invalidations) {
+            this.capacity = capacity;
+            this.size = size;
+            this.hits = hits;
+            this.misses = misses;
+            this.invalidations = invalidations;
+        }
+
+        public int getCapacity() {
+            return capacity;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        public long getHits() {
+            return hits;
+        }
+
+        public long getMisses() {
+            return misses;
+        }
+
+        public long getInvalidations() {
+            return invalidations;
+        }
+
+        public double getHitRate() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0 : (double) hits / lookups;
+        }
+
+        @Override
+        public String toString() {
+            return "size=" + size + "/" + capacity + ", hits=" + hits + ", misses=" + misses
+                    + ", hitRate=" + String.format("%.1f%%", getHitRate() * 100) + ", invalidations=" + invalidations;
+        }
+    }
+}
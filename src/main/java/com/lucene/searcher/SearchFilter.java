@@ -0,0 +1,145 @@
+package com.lucene.searcher;
+
+import com.lucene.indexer.IndexFields;
+import org.apache.lucene.document.KeywordField;
+import org.apache.lucene.document.LongField;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.util.BytesRef;
+
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Restricts a search by extension, folder, size or modification time using the structured fields written by
+ * the indexer: a keyword set query, a single folder term and point range queries. The filter does not
+ * affect scores. Build one with {@link Builder}; {@link #NONE} matches everything.
+ */
+public class SearchFilter {
+
+    public static final SearchFilter NONE = new Builder().build();
+
+    private final Set<String> extensions;
+    private final String folder;
+    private final long minSize;
+    private final long maxSize;
+    private final long modifiedAfterMillis;
+    private final long modifiedBeforeMillis;
+
+    private SearchFilter(Builder builder) {
+        this.extensions = Set.copyOf(builder.extensions);
+        this.folder = builder.folder;
+        this.minSize = builder.minSize;
+        this.maxSize = builder.maxSize;
+        this.modifiedAfterMillis = builder.modifiedAfterMillis;
+        this.modifiedBeforeMillis = builder.modifiedBeforeMillis;
+    }
+
+    public boolean isEmpty() {
+        return extensions.isEmpty() && folder == null && minSize == 0 && maxSize == Long.MAX_VALUE
+                && modifiedAfterMillis == Long.MIN_VALUE && modifiedBeforeMillis == Long.MAX_VALUE;
+    }
+
+    /**
+     * Wraps {@code query} so it only matches documents passing the filter, or returns it unchanged if the
+     * filter is empty.
+     */
+    Query apply(Query query) {
+        if (isEmpty()) {
+            return query;
+        }
+        BooleanQuery.Builder builder = new BooleanQuery.Builder().add(query, BooleanClause.Occur.MUST);
+        if (!extensions.isEmpty()) {
+            List<BytesRef> terms = extensions.stream().sorted().map(BytesRef::new).toList();
+            builder.add(KeywordField.newSetQuery(IndexFields.EXTENSION, terms), BooleanClause.Occur.FILTER);
+        }
+        if (folder != null) {
+            builder.add(new TermQuery(new Term(IndexFields.FOLDER, folder)), BooleanClause.Occur.FILTER);
+        }
+        if (minSize != 0 || maxSize != Long.MAX_VALUE) {
+            builder.add(LongField.newRangeQuery(IndexFields.SIZE, minSize, maxSize), BooleanClause.Occur.FILTER);
+        }
+        if (modifiedAfterMillis != Long.MIN_VALUE || modifiedBeforeMillis != Long.MAX_VALUE) {
+            builder.add(LongField.newRangeQuery(IndexFields.MODIFIED, modifiedAfterMillis, modifiedBeforeMillis),
+                    BooleanClause.Occur.FILTER);
+        }
+        return builder.build();
+    }
+
+    @Override
+    public String toString() {
+        return "extensions=" + extensions + ", folder=" + folder + ", size=[" + minSize + ", " + maxSize
+                + "], modified=[" + modifiedAfterMillis + ", " + modifiedBeforeMillis + "]";
+    }
+
+    public static class Builder {
+
+        private final Set<String> extensions = new LinkedHashSet<>();
+        private String folder;
+        private long minSize = 0;
+        private long maxSize = Long.MAX_VALUE;
+        private long modifiedAfterMillis = Long.MIN_VALUE;
+        private long modifiedBeforeMillis = Long.MAX_VALUE;
+
+        /**
+         * Only files with one of these extensions, given with or without the dot, in any case.
+         */
+        public Builder extensions(String... extensions) {
+            for (String extension : extensions) {
+                String normalized = extension.trim().toLowerCase(Locale.ROOT);
+                if (normalized.startsWith(".")) {
+                    normalized = normalized.substring(1);
+                }
+                if (!normalized.isEmpty()) {
+                    this.extensions.add(normalized);
+                }
+            }
+            return this;
+        }
+
+        /**
+         * Only files anywhere under this folder. A relative folder is resolved against the indexed source
+         * directory, not the working directory, so the same value means the same folder everywhere.
+         */
+        public Builder under(String sourceDirectory, String folder) {
+            this.folder = Paths.get(sourceDirectory).toAbsolutePath().resolve(folder).normalize().toString();
+            return this;
+        }
+
+        /**
+         * Only files of at least {@code minBytes} and at most {@code maxBytes}, inclusive.
+         */
+        public Builder size(long minBytes, long maxBytes) {
+            this.minSize = minBytes;
+            this.maxSize = maxBytes;
+            return this;
+        }
+
+        /**
+         * Only files modified at or after {@code time}.
+         */
+        public Builder modifiedAfter(Instant time) {
+            this.modifiedAfterMillis = time.toEpochMilli();
+            return this;
+        }
+
+        /**
+         * Only files modified at or before {@code time}.
+         */
+        public Builder modifiedBefore(Instant time) {
+            this.modifiedBeforeMillis = time.toEpochMilli();
+            return this;
+        }
+
+        public SearchFilter build() {
+            return new SearchFilter(this);
+        }
+    }
+}
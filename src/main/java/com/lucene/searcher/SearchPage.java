@@ -0,0 +1,102 @@
+package com.lucene.searcher;
+
+import com.lucene.model.WatchResult;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.TotalHits;
+
+import java.util.List;
+
+/**
+ * One page of search results plus the cursor for fetching the next one with
+ * {@link Searcher#nextPage(SearchPage)}. Results carry file name, path and score, plus content
+ * as chosen by the page's {@link SnippetMode}.
+ */
+public class SearchPage {
+
+    private final Searcher source;
+    private final Query query;
+    private final Sort sort;
+    private final int pageSize;
+    private final SnippetMode snippetMode;
+    private final long searcherToken;
+    private final List<WatchResult> results;
+    private final ScoreDoc last;
+    private final int offset;
+    private final TotalHits totalHits;
+
+    SearchPage(Searcher source, Query query, Sort sort, int pageSize, SnippetMode snippetMode, long searcherToken,
+               List<WatchResult> results, ScoreDoc last, int offset, TotalHits totalHits) {
+        this.source = source;
+        this.query = query;
+        this.sort = sort;
+        this.pageSize = pageSize;
+        this.snippetMode = snippetMode;
+        this.searcherToken = searcherToken;
+        this.results = List.copyOf(results);
+        this.last = last;
+        this.offset = offset;
+        this.totalHits = totalHits;
+    }
+
+    public List<WatchResult> getResults() {
+        return results;
+    }
+
+    /**
+     * Position of the first result of this page among all hits.
+     */
+    public int getOffset() {
+        return offset;
+    }
+
+    /**
+     * Total number of hits, or a lower bound if {@link #isTotalHitsExact()} is false.
+     */
+    public long getTotalHits() {
+        return totalHits.value;
+    }
+
+    public boolean isTotalHitsExact() {
+        return totalHits.relation == TotalHits.Relation.EQUAL_TO;
+    }
+
+    public boolean hasMore() {
+        if (results.size() < pageSize) {
+            return false;
+        }
+        return !isTotalHitsExact() || offset + results.size() < totalHits.value;
+    }
+
+    Searcher getSource() {
+        return source;
+    }
+
+    Query getQuery() {
+        return query;
+    }
+
+    /**
+     * Sort the page was fetched with, or null for relevance order.
+     */
+    Sort getSort() {
+        return sort;
+    }
+
+    int getPageSize() {
+        return pageSize;
+    }
+
+    SnippetMode getSnippetMode() {
+        return snippetMode;
+    }
+
+    long getSearcherToken() {
+        return searcherToken;
+    }
+
+    ScoreDoc getLast() {
+        return last;
+    }
+}
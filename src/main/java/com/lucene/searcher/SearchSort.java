@@ -0,0 +1,46 @@
+package com.lucene.searcher;
+
+import com.lucene.indexer.IndexFields;
+import org.apache.lucene.document.LongField;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.SortedNumericSelector;
+
+import java.util.Locale;
+
+/**
+ * Result order for {@link Searcher#searchPage(String, SearchFilter, SearchSort, int, SnippetMode)}. Orders
+ * other than relevance read the size and modified-time doc values and break ties by relevance.
+ */
+public enum SearchSort {
+    RELEVANCE(null),
+    NEWEST(IndexFields.MODIFIED, true),
+    OLDEST(IndexFields.MODIFIED, false),
+    LARGEST(IndexFields.SIZE, true),
+    SMALLEST(IndexFields.SIZE, false);
+
+    private final Sort sort;
+
+    SearchSort(Sort sort) {
+        this.sort = sort;
+    }
+
+    SearchSort(String field, boolean reverse) {
+        this(new Sort(LongField.newSortField(field, reverse, SortedNumericSelector.Type.MIN), SortField.FIELD_SCORE));
+    }
+
+    /**
+     * The Lucene sort, or null for relevance order.
+     */
+    Sort getSort() {
+        return sort;
+    }
+
+    public static SearchSort fromName(String name) {
+        try {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown sort: " + name);
+        }
+    }
+}
@@ -1,17 +1,35 @@
 package com.lucene.searcher;
 
+import com.lucene.indexer.IndexFields;
+import com.lucene.indexer.IndexProfile;
+import com.lucene.indexer.IndexSettings;
+import com.lucene.indexer.Indexer;
+import com.lucene.metrics.Counter;
+import com.lucene.metrics.Metric;
+import com.lucene.metrics.Metrics;
 import com.lucene.model.WatchResult;
 import com.lucene.util.FileUtil;
 import com.lucene.util.logging.CustomLogger;
+import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.analysis.standard.StandardAnalyzer;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.queryparser.classic.ParseException;
 import org.apache.lucene.queryparser.classic.QueryParser;
+import org.apache.lucene.search.ControlledRealTimeReopenThread;
 import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
 import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ReferenceManager;
 import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherLifetimeManager;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.Sort;
 import org.apache.lucene.search.TopDocs;
-import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.search.uhighlight.DefaultPassageFormatter;
+import org.apache.lucene.search.uhighlight.UnifiedHighlighter;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.FSDirectory;
 
@@ -19,118 +37,590 @@ import java.io.IOException;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
 import java.util.logging.Logger;
 
+/**
+ * Runs queries against an index through a {@link SearcherManager}. Each query acquires the current
+ * {@link IndexSearcher} and releases it when done, so queries run concurrently and never reopen the
+ * reader themselves. The manager is refreshed in the background so results are at most
+ * {@code targetMaxStaleSec} seconds behind the index: by one thread shared by every searcher opened on
+ * committed indexes, or by a reopen thread of its own for a near-real-time searcher.
+ */
 public class Searcher {
 
+    public static final double DEFAULT_TARGET_MAX_STALE_SEC = 1.0;
+    private static final double TARGET_MIN_STALE_SEC = 0.1;
     private static final Logger logger = CustomLogger.getLogger(Searcher.class.getName());
+    /**
+     * How long a reader replaced by a refresh stays available to page cursors opened on it.
+     */
+    private static final double PAGE_CURSOR_MAX_AGE_SEC = 60;
+    /**
+     * Readers kept for page cursors, newest first. Under live sync the reader changes every second or so,
+     * so without a cap every search would hold on to another reader and the segment files merged away since.
+     */
+    private static final int MAX_PAGE_CURSOR_READERS = 2;
+    private static final Set<String> PAGE_FIELDS = Set.of(IndexFields.FILENAME, IndexFields.PATH);
+    private static final Set<String> PREVIEW_PAGE_FIELDS = Set.of(IndexFields.FILENAME, IndexFields.PATH, IndexFields.PREVIEW);
+    private static final int MAX_PASSAGES = 2;
+    private static ScheduledExecutorService refreshExecutor;
 
-    private final ByteBuffersDirectory index;
     private final StandardAnalyzer analyzer;
-    private final Object refreshLock = new Object();
     private final String sourceDirectoryPath;
-    private DirectoryReader reader;
-    private IndexSearcher searcher;
+    private final List<Directory> ownedDirectories;
+    private final ReferenceManager<IndexSearcher> searcherManager;
+    /**
+     * Reopen thread of a near-real-time searcher, or null when refreshed by {@link #periodicRefresh}.
+     */
+    private final ControlledRealTimeReopenThread<IndexSearcher> nrtReopenThread;
+    private final ScheduledFuture<?> periodicRefresh;
+    private final Object periodicRefreshLock = new Object();
+    private boolean closed;
+    private final SearcherLifetimeManager pageSearchers = new SearcherLifetimeManager();
+    private final int previewChars;
+    private volatile QueryCache queryCache = new QueryCache(QueryCache.DEFAULT_CAPACITY);
 
-    public Searcher(ByteBuffersDirectory index) throws IOException {
-        this.index = index;
-        this.analyzer = new StandardAnalyzer();
-        this.reader = DirectoryReader.open(this.index);
-        this.searcher = new IndexSearcher(this.reader);
-        this.sourceDirectoryPath = null;
+    public Searcher(Directory index) throws IOException {
+        this(index, new StandardAnalyzer());
     }
 
-    public Searcher(ByteBuffersDirectory index, StandardAnalyzer analyzer) throws IOException {
-        this.index = index;
+    public Searcher(Directory index, StandardAnalyzer analyzer) throws IOException {
         this.analyzer = analyzer;
-        this.reader = DirectoryReader.open(this.index);
-        this.searcher = new IndexSearcher(this.reader);
         this.sourceDirectoryPath = null;
+        this.ownedDirectories = List.of();
+        this.previewChars = Indexer.DEFAULT_PREVIEW_CHARS;
+        this.searcherManager = new SearcherManager(index, ConcurrentSearcherFactory.shared());
+        addRefreshListeners();
+        this.nrtReopenThread = null;
+        this.periodicRefresh = schedulePeriodicRefresh(DEFAULT_TARGET_MAX_STALE_SEC);
     }
 
     /**
      * Creates a searcher for a source directory.
      * Will look for the index in "LucidSearch/data/[encoded-directory-name]"
+     * and open it with the profile saved for that directory.
      */
     public Searcher(String sourceDirectoryPath) throws IOException {
+        this(sourceDirectoryPath, DEFAULT_TARGET_MAX_STALE_SEC);
+    }
+
+    public Searcher(String sourceDirectoryPath, double targetMaxStaleSec) throws IOException {
         this.sourceDirectoryPath = sourceDirectoryPath;
-        this.index = null;
         this.analyzer = new StandardAnalyzer();
 
         Path indexPath = FileUtil.getIndexPath(sourceDirectoryPath);
-        logger.info("Opening index at: " + indexPath);
+        IndexSettings settings = IndexSettings.load(sourceDirectoryPath);
+        IndexProfile profile = settings.getProfile();
+        this.previewChars = settings.getPreviewChars();
+        logger.info("Opening index at: " + indexPath + " with profile " + profile
+                + (settings.isSharded() ? " and " + settings.getShardCount() + " shards" : ""));
 
-        FSDirectory fsDirectory = FSDirectory.open(indexPath);
-        this.reader = DirectoryReader.open(fsDirectory);
-        this.searcher = new IndexSearcher(this.reader);
+        List<Directory> directories = openIndexDirectories(sourceDirectoryPath, settings);
+        try {
+            // Shards are searched together like separate indexes
+            this.searcherManager = settings.isSharded()
+                    ? new MultiReaderManager(directories, ConcurrentSearcherFactory.shared())
+                    : new SearcherManager(directories.get(0), ConcurrentSearcherFactory.shared());
+        } catch (IOException | RuntimeException e) {
+            closeAll(directories);
+            throw e;
+        }
+        this.ownedDirectories = directories;
+        addRefreshListeners();
+        this.nrtReopenThread = null;
+        this.periodicRefresh = schedulePeriodicRefresh(targetMaxStaleSec);
+    }
+
+    /**
+     * Creates a searcher over the indexes of several source directories, combined into one reader so
+     * that a query ranks hits from all of them together. Every index stays open for the searcher's
+     * lifetime and is refreshed independently; the preview length is the largest configured among them.
+     * Pages of a combined search are not pinned to a reader, see {@link #nextPage(SearchPage)}.
+     */
+    public Searcher(List<String> sourceDirectoryPaths) throws IOException {
+        this(sourceDirectoryPaths, DEFAULT_TARGET_MAX_STALE_SEC);
+    }
+
+    public Searcher(List<String> sourceDirectoryPaths, double targetMaxStaleSec) throws IOException {
+        if (sourceDirectoryPaths.isEmpty()) {
+            throw new IOException("No indexed directories to search");
+        }
+        this.sourceDirectoryPath = null;
+        this.analyzer = new StandardAnalyzer();
+
+        List<Directory> directories = new ArrayList<>(sourceDirectoryPaths.size());
+        int maxPreviewChars = 0;
+        try {
+            for (String path : sourceDirectoryPaths) {
+                IndexSettings settings = IndexSettings.load(path);
+                maxPreviewChars = Math.max(maxPreviewChars, settings.getPreviewChars());
+                directories.addAll(openIndexDirectories(path, settings));
+            }
+            logger.info("Opening combined index over " + sourceDirectoryPaths.size() + " directories");
+            this.searcherManager = new MultiReaderManager(directories, ConcurrentSearcherFactory.shared());
+        } catch (IOException | RuntimeException e) {
+            closeAll(directories);
+            throw e;
+        }
+        this.previewChars = maxPreviewChars;
+        this.ownedDirectories = List.copyOf(directories);
+        addRefreshListeners();
+        this.nrtReopenThread = null;
+        this.periodicRefresh = schedulePeriodicRefresh(targetMaxStaleSec);
+    }
+
+    /**
+     * Creates a near-real-time searcher that shares the indexer's {@code IndexWriter}, so changes
+     * become searchable without waiting for a commit.
+     */
+    public Searcher(Indexer indexer) throws IOException {
+        this(indexer, DEFAULT_TARGET_MAX_STALE_SEC);
+    }
+
+    public Searcher(Indexer indexer, double targetMaxStaleSec) throws IOException {
+        this.sourceDirectoryPath = null;
+        this.analyzer = new StandardAnalyzer();
+        this.ownedDirectories = List.of();
+        this.previewChars = indexer.getPreviewChars();
+        this.searcherManager = new SearcherManager(indexer.getWriter(), true, true, ConcurrentSearcherFactory.shared());
+        addRefreshListeners();
+        ControlledRealTimeReopenThread<IndexSearcher> nrtThread = new ControlledRealTimeReopenThread<>(
+                indexer.getWriter(), searcherManager, targetMaxStaleSec, Math.min(TARGET_MIN_STALE_SEC, targetMaxStaleSec));
+        nrtThread.setName("SearcherReopenThread");
+        nrtThread.setDaemon(true);
+        nrtThread.start();
+        this.nrtReopenThread = nrtThread;
+        this.periodicRefresh = null;
     }
 
     public static boolean isValidIndexDirectory(String sourceDirPath) {
         try {
-            Path indexPath = FileUtil.getIndexPath(sourceDirPath);
-            Directory directory = FSDirectory.open(indexPath);
-            return DirectoryReader.indexExists(directory);
+            IndexSettings settings = IndexSettings.load(sourceDirPath);
+            for (int shard = 0; shard < settings.getShardCount(); shard++) {
+                Path indexPath = settings.isSharded()
+                        ? FileUtil.getShardIndexPath(sourceDirPath, shard)
+                        : FileUtil.getIndexPath(sourceDirPath);
+                try (Directory directory = FSDirectory.open(indexPath)) {
+                    if (!DirectoryReader.indexExists(directory)) {
+                        return false;
+                    }
+                }
+            }
+            return true;
         } catch (Exception e) {
             return false;
         }
     }
 
-    public void refresh() throws IOException {
-        synchronized (refreshLock) {
-            DirectoryReader newReader = DirectoryReader.openIfChanged(this.reader);
-            if (newReader != null) {
-                this.reader.close();
-                this.reader = newReader;
-                this.searcher = new IndexSearcher(this.reader);
-                logger.info("IndexReader refreshed with updated content.");
+    /**
+     * Opens the index of a source directory, or each of its shards, with its saved profile.
+     */
+    private static List<Directory> openIndexDirectories(String sourceDirectoryPath, IndexSettings settings)
+            throws IOException {
+        if (!settings.isSharded()) {
+            return List.of(settings.getProfile().openDirectory(FileUtil.getIndexPath(sourceDirectoryPath)));
+        }
+        List<Directory> directories = new ArrayList<>(settings.getShardCount());
+        try {
+            for (int shard = 0; shard < settings.getShardCount(); shard++) {
+                directories.add(settings.getProfile().openDirectory(FileUtil.getShardIndexPath(sourceDirectoryPath, shard)));
             }
+        } catch (IOException | RuntimeException e) {
+            closeAll(directories);
+            throw e;
         }
+        return List.copyOf(directories);
     }
 
+    private static void closeAll(List<Directory> directories) throws IOException {
+        for (Directory directory : directories) {
+            directory.close();
+        }
+    }
+
+    /**
+     * Blocks until the searcher reflects the latest changes. Queries do not need this; the
+     * background reopen thread keeps the searcher within the target staleness.
+     */
+    public void refresh() throws IOException {
+        searcherManager.maybeRefreshBlocking();
+    }
+
+    /**
+     * Sets how many parsed queries and result lists are cached; 0 disables caching.
+     * Replaces the current cache and its statistics.
+     */
+    public void setQueryCacheSize(int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("Query cache size must not be negative: " + size);
+        }
+        queryCache = new QueryCache(size);
+    }
+
+    public QueryCache.Stats getQueryCacheStats() {
+        return queryCache.stats();
+    }
+
+    /**
+     * Returns the top hits for a query. Repeated queries are answered from the cache until the
+     * searcher is refreshed onto a new reader.
+     */
     public List<WatchResult> search(String queryString, int maxResults) throws Exception {
-        refresh();
-        List<WatchResult> wresults = new ArrayList<>();
-        Query query = new QueryParser("content", analyzer).parse(queryString);
-        TopDocs topDocs = searcher.search(query, maxResults);
-        logger.info("Total Hits: " + topDocs.totalHits.value);
-        for (ScoreDoc sd : topDocs.scoreDocs) {
-            Document doc = searcher.doc(sd.doc);
-            if (doc == null) {
-                logger.warning("Document not found for scoreDoc: " + sd.doc);
-                continue;
-            }
-            WatchResult wresult = new WatchResult.Builder()
-                    .fileName(doc.get("filename"))
-                    .filePath(doc.get("path"))
-                    .content(docPreview(doc.get("content")))
+        long start = Metrics.start();
+        QueryCache cache = queryCache;
+        String normalizedQuery = QueryCache.normalize(queryString);
+        IndexSearcher searcher = searcherManager.acquire();
+        try {
+            long readerVersion = readerVersion(searcher);
+            boolean cacheable = cache.isEnabled() && readerVersion >= 0;
+            if (cacheable) {
+                List<WatchResult> cached = cache.getResults(normalizedQuery, maxResults, readerVersion);
+                if (cached != null) {
+                    return cached;
+                }
+            }
+            Query query = parse(normalizedQuery, cache);
+            List<WatchResult> wresults = new ArrayList<>();
+            TopDocs topDocs = searcher.search(query, maxResults);
+            logger.fine("Total Hits: " + topDocs.totalHits.value);
+            for (ScoreDoc sd : topDocs.scoreDocs) {
+                Document doc = searcher.storedFields().document(sd.doc);
+                WatchResult wresult = new WatchResult.Builder()
+                        .fileName(doc.get(IndexFields.FILENAME))
+                        .filePath(doc.get(IndexFields.PATH))
+                        .content(docPreview(doc))
+                        .score(sd.score)
+                        .build();
+                wresults.add(wresult);
+            }
+            Metrics.add(Counter.SEARCH_HITS, wresults.size());
+            if (cacheable) {
+                cache.putResults(normalizedQuery, maxResults, readerVersion, wresults);
+            }
+            return wresults;
+        } finally {
+            searcherManager.release(searcher);
+            Metrics.record(Metric.SEARCH, start, queryString);
+        }
+    }
+
+    public void close() throws IOException {
+        if (nrtReopenThread != null) {
+            nrtReopenThread.close();
+        } else {
+            periodicRefresh.cancel(false);
+            // Waits for a refresh already running on the shared thread
+            synchronized (periodicRefreshLock) {
+                closed = true;
+            }
+        }
+        pageSearchers.close();
+        searcherManager.close();
+        closeAll(ownedDirectories);
+    }
+
+    private ScheduledFuture<?> schedulePeriodicRefresh(double targetMaxStaleSec) {
+        long intervalMillis = Math.max(1, (long) (targetMaxStaleSec * 1000));
+        return refreshExecutor().scheduleWithFixedDelay(() -> {
+            synchronized (periodicRefreshLock) {
+                if (closed) {
+                    return;
+                }
+                try {
+                    searcherManager.maybeRefresh();
+                } catch (Exception e) {
+                    logger.warning("Background searcher refresh failed: " + e.getMessage());
+                }
+            }
+        }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Returns the executor refreshing every searcher on a committed index, creating its thread on first use.
+     * Such a refresh only reopens when a new commit appeared, so one thread keeps up with all of them.
+     */
+    private static synchronized ScheduledExecutorService refreshExecutor() {
+        if (refreshExecutor == null) {
+            refreshExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "SearcherRefreshThread");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return refreshExecutor;
+    }
+
+    /**
+     * Returns the first page of hits for a query. Only file name and path are loaded per hit.
+     * Use {@link #nextPage(SearchPage)} to continue; later pages come from the current reader unless
+     * the first page was fetched with {@code pinReader}, see
+     * {@link #searchPage(String, SearchFilter, SearchSort, int, SnippetMode, BooleanSupplier, boolean)}.
+     */
+    public SearchPage searchPage(String queryString, int pageSize) throws Exception {
+        return searchPage(queryString, pageSize, SnippetMode.NONE);
+    }
+
+    /**
+     * Returns the first page of hits for a query, with content filled in according to the snippet mode.
+     * Later pages use the same mode.
+     */
+    public SearchPage searchPage(String queryString, int pageSize, SnippetMode snippetMode) throws Exception {
+        return searchPage(queryString, pageSize, snippetMode, () -> false);
+    }
+
+    /**
+     * Like {@link #searchPage(String, int, SnippetMode)}, checking {@code cancelled} before each hit is
+     * loaded and throwing {@link CancellationException} once it returns true.
+     */
+    public SearchPage searchPage(String queryString, int pageSize, SnippetMode snippetMode, BooleanSupplier cancelled)
+            throws Exception {
+        return searchPage(queryString, SearchFilter.NONE, SearchSort.RELEVANCE, pageSize, snippetMode, cancelled);
+    }
+
+    /**
+     * Returns the first page of hits for a query restricted by {@code filter}, in the given order. A blank
+     * query matches every file passing the filter, so "all .java files under src changed this week, newest
+     * first" needs no query text.
+     */
+    public SearchPage searchPage(String queryString, SearchFilter filter, SearchSort sort, int pageSize,
+                                 SnippetMode snippetMode) throws Exception {
+        return searchPage(queryString, filter, sort, pageSize, snippetMode, () -> false);
+    }
+
+    /**
+     * Like {@link #searchPage(String, SearchFilter, SearchSort, int, SnippetMode)}, cancellable in the same way
+     * as {@link #searchPage(String, int, SnippetMode, BooleanSupplier)}.
+     */
+    public SearchPage searchPage(String queryString, SearchFilter filter, SearchSort sort, int pageSize,
+                                 SnippetMode snippetMode, BooleanSupplier cancelled) throws Exception {
+        return searchPage(queryString, filter, sort, pageSize, snippetMode, cancelled, false);
+    }
+
+    /**
+     * Like {@link #searchPage(String, SearchFilter, SearchSort, int, SnippetMode, BooleanSupplier)}. With
+     * {@code pinReader}, the reader is kept so {@link #nextPage(SearchPage)} sees the same point-in-time view
+     * as this page. Only the most recent pinned readers are kept, and only for a minute after a refresh
+     * replaced them, so a new pinned search releases the readers of searches it supersedes. Callers
+     * that never page further should not pin.
+     */
+    public SearchPage searchPage(String queryString, SearchFilter filter, SearchSort sort, int pageSize,
+                                 SnippetMode snippetMode, BooleanSupplier cancelled, boolean pinReader)
+            throws Exception {
+        long start = Metrics.start();
+        String normalizedQuery = QueryCache.normalize(queryString);
+        Query query = filter.apply(normalizedQuery.isEmpty() ? new MatchAllDocsQuery() : parse(normalizedQuery, queryCache));
+        IndexSearcher searcher = searcherManager.acquire();
+        try {
+            long token = -1;
+            if (pinReader && searcher.getIndexReader() instanceof DirectoryReader) {
+                token = pageSearchers.record(searcher);
+                pageSearchers.prune(new PageCursorPruner());
+            }
+            return fetchPage(searcher, query, sort.getSort(), pageSize, snippetMode, token, null, 0, cancelled);
+        } finally {
+            searcherManager.release(searcher);
+            Metrics.record(Metric.SEARCH, start, queryString);
+        }
+    }
+
+    /**
+     * Returns the page after the given one, read from the same reader as the first page as long
+     * as that reader has not been pruned; otherwise, and always for a combined multi-directory
+     * searcher, from the current reader, in which case hits that moved since the previous page
+     * may be skipped or repeated.
+     */
+    public SearchPage nextPage(SearchPage previous) throws Exception {
+        return nextPage(previous, () -> false);
+    }
+
+    /**
+     * Like {@link #nextPage(SearchPage)}, cancellable in the same way as
+     * {@link #searchPage(String, int, SnippetMode, BooleanSupplier)}.
+     */
+    public SearchPage nextPage(SearchPage previous, BooleanSupplier cancelled) throws Exception {
+        if (previous.getSource() != this) {
+            throw new IllegalArgumentException("Page belongs to a different searcher");
+        }
+        long start = Metrics.start();
+        IndexSearcher pinned = previous.getSearcherToken() >= 0 ? pageSearchers.acquire(previous.getSearcherToken()) : null;
+        IndexSearcher searcher = pinned != null ? pinned : searcherManager.acquire();
+        try {
+            long token = pinned != null ? previous.getSearcherToken() : -1;
+            return fetchPage(searcher, previous.getQuery(), previous.getSort(), previous.getPageSize(),
+                    previous.getSnippetMode(), token, previous.getLast(),
+                    previous.getOffset() + previous.getResults().size(), cancelled);
+        } finally {
+            if (pinned != null) {
+                pageSearchers.release(pinned);
+            } else {
+                searcherManager.release(searcher);
+            }
+            Metrics.record(Metric.SEARCH, start, previous.getQuery());
+        }
+    }
+
+    /**
+     * Keeps the {@value #MAX_PAGE_CURSOR_READERS} newest pinned readers, dropping any replaced more than
+     * {@value #PAGE_CURSOR_MAX_AGE_SEC} seconds ago. Lucene offers the readers newest first.
+     */
+    private static final class PageCursorPruner implements SearcherLifetimeManager.Pruner {
+
+        private int offered;
+
+        @Override
+        public boolean doPrune(double ageSec, IndexSearcher searcher) {
+            return ++offered > MAX_PAGE_CURSOR_READERS || ageSec > PAGE_CURSOR_MAX_AGE_SEC;
+        }
+    }
+
+    private SearchPage fetchPage(IndexSearcher searcher, Query query, Sort sort, int pageSize,
+                                 SnippetMode snippetMode, long token, ScoreDoc after, int offset,
+                                 BooleanSupplier cancelled) throws IOException {
+        // Sorted pages return FieldDocs, so the cursor carries the sort values searchAfter needs
+        TopDocs topDocs = sort == null
+                ? searcher.searchAfter(after, query, pageSize)
+                : searcher.searchAfter(after, query, pageSize, sort, true);
+        String[] snippets = null;
+        if (snippetMode == SnippetMode.HIGHLIGHT) {
+            if (cancelled.getAsBoolean()) {
+                throw new CancellationException("Search cancelled: " + query);
+            }
+            snippets = highlight(searcher, query, topDocs);
+        }
+        StoredFields storedFields = searcher.storedFields();
+        Set<String> fields = snippetMode == SnippetMode.NONE ? PAGE_FIELDS : PREVIEW_PAGE_FIELDS;
+        List<WatchResult> results = new ArrayList<>(topDocs.scoreDocs.length);
+        for (int i = 0; i < topDocs.scoreDocs.length; i++) {
+            ScoreDoc sd = topDocs.scoreDocs[i];
+            if (cancelled.getAsBoolean()) {
+                throw new CancellationException("Search cancelled: " + query);
+            }
+            // Visits only the listed fields
+            Document doc = storedFields.document(sd.doc, fields);
+            String content = switch (snippetMode) {
+                case NONE -> "";
+                case PREVIEW -> docPreview(doc);
+                case HIGHLIGHT -> snippets[i] != null ? snippets[i] : docPreview(doc);
+            };
+            results.add(new WatchResult.Builder()
+                    .fileName(doc.get(IndexFields.FILENAME))
+                    .filePath(doc.get(IndexFields.PATH))
+                    .content(content)
                     .score(sd.score)
-                    .build();
-            wresults.add(wresult);
+                    .build());
         }
-        return wresults;
+        Metrics.add(Counter.SEARCH_HITS, results.size());
+        ScoreDoc last = topDocs.scoreDocs.length > 0 ? topDocs.scoreDocs[topDocs.scoreDocs.length - 1] : after;
+        return new SearchPage(this, query, sort, pageSize, snippetMode, token, results, last, offset,
+                topDocs.totalHits);
     }
 
-    public ScoreDoc[] getSearch(String queryString, int maxResults) throws Exception {
-        synchronized (refreshLock) {
-            refresh();
-            Query query = new QueryParser("content", analyzer).parse(queryString);
-            TopDocs topDocs = searcher.search(query, maxResults);
-            return topDocs.scoreDocs;
+    private Query parse(String normalizedQuery, QueryCache cache) throws ParseException {
+        Query query = cache.isEnabled() ? cache.getQuery(normalizedQuery) : null;
+        if (query == null) {
+            // QueryParser is not thread-safe, so each parse gets its own
+            query = new QueryParser(IndexFields.CONTENT, analyzer).parse(normalizedQuery);
+            if (cache.isEnabled()) {
+                cache.putQuery(normalizedQuery, query);
+            }
         }
+        return query;
     }
 
-    public Document getDocument(ScoreDoc hit) throws Exception {
-        return searcher.doc(hit.doc);
+    /**
+     * Version of the reader behind a searcher, or -1 if it has none and results must not be cached.
+     */
+    private static long readerVersion(IndexSearcher searcher) {
+        IndexReader reader = searcher.getIndexReader();
+        if (reader instanceof DirectoryReader directoryReader) {
+            return directoryReader.getVersion();
+        }
+        if (reader instanceof MultiReaderManager.CombinedReader combinedReader) {
+            return combinedReader.getVersion();
+        }
+        return -1;
     }
 
-    public void close() throws IOException {
-        if (reader != null) {
-            reader.close();
+    private void addRefreshListeners() {
+        searcherManager.addListener(new RefreshTimer());
+        searcherManager.addListener(new ReferenceManager.RefreshListener() {
+            @Override
+            public void beforeRefresh() {
+            }
+
+            @Override
+            public void afterRefresh(boolean didRefresh) {
+                if (didRefresh) {
+                    queryCache.invalidateResults();
+                }
+            }
+        });
+    }
+
+    /**
+     * Times refreshes that actually reopen the searcher. The manager runs one refresh at a time,
+     * so a single start field is enough.
+     */
+    private static class RefreshTimer implements ReferenceManager.RefreshListener {
+
+        private long startNanos;
+
+        @Override
+        public void beforeRefresh() {
+            startNanos = Metrics.start();
+        }
+
+        @Override
+        public void afterRefresh(boolean didRefresh) {
+            if (didRefresh) {
+                Metrics.record(Metric.REFRESH, startNanos);
+            }
+        }
+    }
+
+    private String docPreview(Document doc) {
+        String content = doc.get(IndexFields.PREVIEW);
+        if (content == null) {
+            return "";
+        }
+        return content.length() > previewChars ? content.substring(0, previewChars) + "..." : content;
+    }
+
+    /**
+     * Picks the passages of each hit that best match the query from its stored highlight text, using the
+     * offsets indexed with the content. Entries are null where a hit has no stored text to highlight.
+     */
+    private String[] highlight(IndexSearcher searcher, Query query, TopDocs topDocs) {
+        try {
+            String[] snippets = newHighlighter(searcher, analyzer)
+                    .highlight(IndexFields.CONTENT, query, topDocs, MAX_PASSAGES);
+            for (int i = 0; i < snippets.length; i++) {
+                if (snippets[i] != null) {
+                    snippets[i] = snippets[i].replaceAll("\\s+", " ").trim();
+                }
+            }
+            return snippets;
+        } catch (IOException | RuntimeException e) {
+            logger.fine("Cannot highlight " + query + ": " + e.getMessage());
+            return new String[topDocs.scoreDocs.length];
         }
     }
 
-    private String docPreview(String content) {
-        return content.length() > 150 ? content.substring(0, 150) + "..." : content;
+    private static UnifiedHighlighter newHighlighter(IndexSearcher searcher, Analyzer analyzer) {
+        return UnifiedHighlighter.builder(searcher, analyzer)
+                // The stored text is already cut to the index's highlight length
+                .withMaxLength(Integer.MAX_VALUE - 1)
+                // Hits without a match in the stored text fall back to their preview
+                .withMaxNoHighlightPassages(0)
+                .withFormatter(new DefaultPassageFormatter("[", "]", " ... ", false))
+                .build();
     }
 
 }
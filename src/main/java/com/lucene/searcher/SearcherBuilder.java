@@ -1,7 +1,7 @@
 package com.lucene.searcher;
 
 import org.apache.lucene.analysis.standard.StandardAnalyzer;
-import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
 
 import java.io.IOException;
 
@@ -9,7 +9,7 @@ public class SearcherBuilder {
 
     private static SearcherBuilder instance;
 
-    private ByteBuffersDirectory index;
+    private Directory index;
     private StandardAnalyzer analyzer;
 
     private SearcherBuilder() {}
@@ -21,7 +21,7 @@ public class SearcherBuilder {
         return instance;
     }
 
-    public SearcherBuilder setIndex(ByteBuffersDirectory index) {
+    public SearcherBuilder setIndex(Directory index) {
         this.index = index;
         return this;
     }
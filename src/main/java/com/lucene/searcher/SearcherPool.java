@@ -0,0 +1,309 @@
+package com.lucene.searcher;
+
+import com.lucene.util.logging.CustomLogger;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.logging.Logger;
+
+/**
+ * Ref-counted registry of open {@link Searcher}s keyed by source directory, so switching back to a
+ * directory reuses its open reader instead of reopening the index. Each acquire must be paired with a
+ * {@link #release(Searcher)}. Once more than {@code capacity} directories are open, the least recently
+ * used idle searchers are closed; searchers still in use are only closed after their last release.
+ * A directory about to be re-indexed must be {@link #invalidate(String) invalidated} so the next acquire
+ * opens the rebuilt index instead of a reader on deleted files.
+ * <p>
+ * The capacity defaults to the {@value #CAPACITY_PROPERTY} system property, and the queries run by
+ * {@link #warmUp(List, List)} can be set with {@value #WARM_UP_QUERIES_PROPERTY}, separated by ';'.
+ */
+public class SearcherPool implements AutoCloseable {
+
+    public static final String CAPACITY_PROPERTY = "lucid.search.poolSize";
+    public static final String WARM_UP_QUERIES_PROPERTY = "lucid.search.warmUpQueries";
+    public static final int DEFAULT_CAPACITY = 4;
+    private static final int WARM_UP_HITS = 50;
+    private static final Logger logger = CustomLogger.getLogger(SearcherPool.class.getName());
+
+    private final int capacity;
+    /**
+     * Access-ordered, so iteration starts at the least recently acquired directory.
+     */
+    private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    /**
+     * Invalidated entries still acquired by someone, closed on their last release.
+     */
+    private final List<Entry> retired = new ArrayList<>();
+    private boolean closed;
+
+    public SearcherPool() {
+        this(Integer.getInteger(CAPACITY_PROPERTY, DEFAULT_CAPACITY));
+    }
+
+    public SearcherPool(int capacity) {
+        this.capacity = Math.max(1, capacity);
+    }
+
+    /**
+     * Returns the warm-up queries configured with {@value #WARM_UP_QUERIES_PROPERTY}, or none.
+     */
+    public static List<String> configuredWarmUpQueries() {
+        String value = System.getProperty(WARM_UP_QUERIES_PROPERTY, "");
+        return Arrays.stream(value.split(";")).map(String::trim).filter(query -> !query.isEmpty()).toList();
+    }
+
+    /**
+     * Returns the searcher for a source directory, opening it if it is not pooled yet.
+     */
+    public Searcher acquire(String sourceDirectoryPath) throws IOException {
+        Entry entry;
+        synchronized (this) {
+            if (closed) {
+                throw new IllegalStateException("Searcher pool is closed");
+            }
+            entry = entries.computeIfAbsent(sourceDirectoryPath, Entry::new);
+            entry.refCount++;
+        }
+        Searcher searcher;
+        try {
+            // Opened outside the pool lock so a slow index does not hold up other directories
+            searcher = entry.open();
+        } catch (IOException | RuntimeException e) {
+            synchronized (this) {
+                entry.refCount--;
+                if (entry.refCount == 0) {
+                    entries.remove(sourceDirectoryPath, entry);
+                    retired.remove(entry);
+                }
+            }
+            throw e;
+        }
+        if (closeIfPoolClosed(entry, searcher)) {
+            throw new IllegalStateException("Searcher pool is closed");
+        }
+        closeAll(evictIdle());
+        return searcher;
+    }
+
+    /**
+     * Gives up a searcher acquired while the pool was being closed. One opened after {@link #close()}
+     * looked at its entry was never seen there, so it is closed here by whichever acquire gets to it first.
+     *
+     * @return false if the pool is still open
+     */
+    private boolean closeIfPoolClosed(Entry entry, Searcher searcher) throws IOException {
+        synchronized (this) {
+            if (!closed) {
+                return false;
+            }
+            entry.refCount--;
+            if (entry.closing) {
+                return true;
+            }
+            entry.closing = true;
+        }
+        searcher.close();
+        return true;
+    }
+
+    /**
+     * Gives back a searcher obtained from {@link #acquire(String)}. After {@link #close()} this does nothing,
+     * since closing the pool closed the searcher already.
+     */
+    public void release(Searcher searcher) throws IOException {
+        List<Searcher> toClose;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            Entry entry = find(searcher);
+            if (entry != null) {
+                entry.refCount--;
+                toClose = evictIdle();
+            } else {
+                entry = findRetired(searcher);
+                if (entry == null) {
+                    throw new IllegalArgumentException("Searcher does not belong to this pool");
+                }
+                entry.refCount--;
+                toClose = new ArrayList<>();
+                if (entry.refCount == 0) {
+                    retired.remove(entry);
+                    toClose.add(entry.searcher);
+                }
+            }
+        }
+        closeAll(toClose);
+    }
+
+    /**
+     * Drops the pooled searcher of a directory, closing it now if idle or on its last release otherwise.
+     * Call before re-indexing the directory, since the rebuild may clear or delete the files the pooled
+     * reader has open; the next {@link #acquire(String)} then opens the new index.
+     */
+    public void invalidate(String sourceDirectoryPath) throws IOException {
+        Searcher toClose = null;
+        synchronized (this) {
+            Entry entry = entries.remove(sourceDirectoryPath);
+            if (entry == null) {
+                return;
+            }
+            if (entry.refCount > 0) {
+                retired.add(entry);
+            } else {
+                toClose = entry.searcher;
+            }
+        }
+        logger.fine("Invalidated searcher for " + sourceDirectoryPath);
+        if (toClose != null) {
+            toClose.close();
+        }
+    }
+
+    public synchronized boolean isOpen(String sourceDirectoryPath) {
+        Entry entry = entries.get(sourceDirectoryPath);
+        return entry != null && entry.searcher != null;
+    }
+
+    /**
+     * Opens the searchers for the given directories on a background thread, up to the pool capacity,
+     * and runs the warm-up queries on each, so the first real query finds the index files in the page
+     * cache and its results possibly already cached. Failures are logged and skipped.
+     */
+    public CompletableFuture<Void> warmUp(List<String> sourceDirectoryPaths, List<String> queries) {
+        List<String> warmUpQueries = List.copyOf(queries);
+        return warmUp(sourceDirectoryPaths, path -> warmUpQueries);
+    }
+
+    /**
+     * Like {@link #warmUp(List, List)}, in the given order and with queries chosen per directory.
+     */
+    public CompletableFuture<Void> warmUp(List<String> sourceDirectoryPaths,
+                                          Function<String, List<String>> queriesFor) {
+        int count = Math.min(capacity, sourceDirectoryPaths.size());
+        List<String> paths = List.copyOf(sourceDirectoryPaths.subList(0, count));
+        return CompletableFuture.runAsync(() -> {
+            for (String path : paths) {
+                long start = System.currentTimeMillis();
+                try {
+                    Searcher searcher = acquire(path);
+                    try {
+                        for (String query : queriesFor.apply(path)) {
+                            searcher.search(query, WARM_UP_HITS);
+                        }
+                    } finally {
+                        release(searcher);
+                    }
+                    logger.info("Warmed up " + path + " in " + (System.currentTimeMillis() - start) + "ms");
+                } catch (Exception e) {
+                    logger.warning("Failed to warm up " + path + ": " + e.getMessage());
+                }
+            }
+        }, runnable -> Thread.ofVirtual().name("SearcherWarmUp").start(runnable));
+    }
+
+    @Override
+    public void close() throws IOException {
+        List<Searcher> toClose = new ArrayList<>();
+        synchronized (this) {
+            closed = true;
+            for (Entry entry : entries.values()) {
+                if (entry.searcher != null) {
+                    entry.closing = true;
+                    toClose.add(entry.searcher);
+                }
+            }
+            entries.clear();
+            for (Entry entry : retired) {
+                if (entry.searcher != null) {
+                    entry.closing = true;
+                    toClose.add(entry.searcher);
+                }
+            }
+            retired.clear();
+        }
+        closeAll(toClose);
+    }
+
+    private Entry find(Searcher searcher) {
+        for (Entry entry : entries.values()) {
+            if (entry.searcher == searcher) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    private Entry findRetired(Searcher searcher) {
+        for (Entry entry : retired) {
+            if (entry.searcher == searcher) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Removes idle entries, least recently used first, until the pool is within capacity.
+     */
+    private synchronized List<Searcher> evictIdle() {
+        List<Searcher> evicted = new ArrayList<>();
+        Iterator<Entry> it = entries.values().iterator();
+        while (entries.size() > capacity && it.hasNext()) {
+            Entry entry = it.next();
+            if (entry.refCount == 0 && entry.searcher != null) {
+                it.remove();
+                evicted.add(entry.searcher);
+                logger.fine("Evicted searcher for " + entry.path);
+            }
+        }
+        return evicted;
+    }
+
+    private static void closeAll(List<Searcher> searchers) throws IOException {
+        IOException failure = null;
+        for (Searcher searcher : searchers) {
+            try {
+                searcher.close();
+            } catch (IOException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private static class Entry {
+
+        private final String path;
+        private volatile Searcher searcher;
+        private int refCount;
+        /**
+         * Set under the pool lock once the searcher has been handed to be closed, so it is closed only once.
+         */
+        private boolean closing;
+
+        Entry(String path) {
+            this.path = path;
+        }
+
+        synchronized Searcher open() throws IOException {
+            if (searcher == null) {
+                searcher = new Searcher(path);
+            }
+            return searcher;
+        }
+    }
+}
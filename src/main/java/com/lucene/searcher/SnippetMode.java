@@ -0,0 +1,20 @@
+package com.lucene.searcher;
+
+/**
+ * What {@link Searcher#searchPage(String, int, SnippetMode)} puts in each result's content.
+ */
+public enum SnippetMode {
+    /**
+     * No content; only file name, path and score are loaded.
+     */
+    NONE,
+    /**
+     * The stored start of the file.
+     */
+    PREVIEW,
+    /**
+     * Passages around the query terms, taken from the stored start of the content using the offsets in
+     * the index. Falls back to the preview when no match lies within the stored text.
+     */
+    HIGHLIGHT
+}
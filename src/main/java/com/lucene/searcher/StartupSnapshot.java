@@ -0,0 +1,175 @@
+package com.lucene.searcher;
+
+import com.lucene.util.FileUtil;
+import com.lucene.util.logging.CustomLogger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.logging.Logger;
+
+/**
+ * State saved at exit so the next launch can skip work: which directories were indexed, when each was
+ * last used, and the queries run against it most often. Saving touches no index, so it is cheap enough
+ * for the exit path.
+ * <p>
+ * {@link #wasIndexed(String)} lets startup list a directory as indexed without touching its index,
+ * and {@link #byPriority(Collection)} and {@link #getHotQueries(String)} tell
+ * {@link SearcherPool#warmUp(List, java.util.function.Function)} which readers to open first and
+ * which queries to run on them.
+ */
+public class StartupSnapshot {
+
+    /**
+     * Hot queries saved per directory.
+     */
+    static final int MAX_HOT_QUERIES = 10;
+    /**
+     * Distinct queries counted per directory during a session; the least frequent are dropped beyond this.
+     */
+    private static final int MAX_TRACKED_QUERIES = 100;
+    private static final Logger logger = CustomLogger.getLogger(StartupSnapshot.class.getName());
+
+    private final Path file;
+    private final Map<String, Entry> entries = new LinkedHashMap<>();
+
+    private StartupSnapshot(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Loads the snapshot saved in the data directory, or an empty one if there is none or it is unreadable.
+     */
+    public static StartupSnapshot load() {
+        return load(FileUtil.getStartupSnapshotPath());
+    }
+
+    static StartupSnapshot load(Path file) {
+        StartupSnapshot snapshot = new StartupSnapshot(file);
+        if (!Files.exists(file)) {
+            return snapshot;
+        }
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(file)) {
+            properties.load(in);
+            for (int i = 0; properties.containsKey(key(i, "path")); i++) {
+                Entry entry = new Entry();
+                entry.lastUsedMillis = Long.parseLong(properties.getProperty(key(i, "lastUsed"), "0"));
+                entry.indexed = Boolean.parseBoolean(properties.getProperty(key(i, "indexed")));
+                for (int m = 0; properties.containsKey(key(i, "query." + m)); m++) {
+                    String value = properties.getProperty(key(i, "query." + m));
+                    int space = value.indexOf(' ');
+                    entry.queryCounts.put(value.substring(space + 1), Long.parseLong(value.substring(0, space)));
+                }
+                snapshot.entries.put(properties.getProperty(key(i, "path")), entry);
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warning("Ignoring unreadable startup snapshot " + file + ": " + e.getMessage());
+            snapshot.entries.clear();
+        }
+        return snapshot;
+    }
+
+    /**
+     * Whether the directory was saved as indexed. This is answered from the snapshot alone, without reading
+     * settings or index files, so it can be stale: callers trust it to list the directory and check the
+     * index itself when it is first opened.
+     */
+    public synchronized boolean wasIndexed(String sourceDirectoryPath) {
+        Entry entry = entries.get(sourceDirectoryPath);
+        return entry != null && entry.indexed;
+    }
+
+    /**
+     * Orders directories for preloading: most recently used first, then those never used in their given order.
+     */
+    public synchronized List<String> byPriority(Collection<String> sourceDirectoryPaths) {
+        List<String> ordered = new ArrayList<>(sourceDirectoryPaths);
+        ordered.sort(Comparator.comparingLong((String path) -> {
+            Entry entry = entries.get(path);
+            return entry == null ? 0 : entry.lastUsedMillis;
+        }).reversed());
+        return ordered;
+    }
+
+    /**
+     * The queries run most often against a directory, most frequent first.
+     */
+    public synchronized List<String> getHotQueries(String sourceDirectoryPath) {
+        Entry entry = entries.get(sourceDirectoryPath);
+        return entry == null ? List.of() : entry.hotQueries(MAX_HOT_QUERIES);
+    }
+
+    public synchronized void recordUse(String sourceDirectoryPath) {
+        entries.computeIfAbsent(sourceDirectoryPath, path -> new Entry()).lastUsedMillis = System.currentTimeMillis();
+    }
+
+    public synchronized void recordQuery(String sourceDirectoryPath, String queryString) {
+        Entry entry = entries.computeIfAbsent(sourceDirectoryPath, path -> new Entry());
+        entry.lastUsedMillis = System.currentTimeMillis();
+        entry.queryCounts.merge(QueryCache.normalize(queryString), 1L, Long::sum);
+        if (entry.queryCounts.size() > MAX_TRACKED_QUERIES) {
+            entry.queryCounts.keySet().retainAll(entry.hotQueries(MAX_TRACKED_QUERIES / 2));
+        }
+    }
+
+    /**
+     * Writes the snapshot with the given directories marked as indexed, dropping every other directory.
+     */
+    public synchronized void save(Collection<String> sourceDirectoryPaths) throws IOException {
+        entries.keySet().retainAll(new HashSet<>(sourceDirectoryPaths));
+        Properties properties = new Properties();
+        int i = 0;
+        for (String path : sourceDirectoryPaths) {
+            Entry entry = entries.computeIfAbsent(path, p -> new Entry());
+            entry.indexed = true;
+            properties.setProperty(key(i, "path"), path);
+            properties.setProperty(key(i, "lastUsed"), String.valueOf(entry.lastUsedMillis));
+            properties.setProperty(key(i, "indexed"), "true");
+            List<String> hotQueries = entry.hotQueries(MAX_HOT_QUERIES);
+            for (int m = 0; m < hotQueries.size(); m++) {
+                String query = hotQueries.get(m);
+                properties.setProperty(key(i, "query." + m), entry.queryCounts.get(query) + " " + query);
+            }
+            i++;
+        }
+        Files.createDirectories(file.getParent());
+        // Write aside and move so a crash mid-write never leaves a truncated snapshot
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (OutputStream out = Files.newOutputStream(temp)) {
+            properties.store(out, "LucidSearch startup snapshot");
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static String key(int index, String name) {
+        return "dir." + index + "." + name;
+    }
+
+    private static final class Entry {
+
+        private long lastUsedMillis;
+        private boolean indexed;
+        private final Map<String, Long> queryCounts = new HashMap<>();
+
+        List<String> hotQueries(int limit) {
+            return queryCounts.entrySet().stream()
+                    .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                    .limit(limit)
+                    .map(Map.Entry::getKey)
+                    .toList();
+        }
+    }
+}
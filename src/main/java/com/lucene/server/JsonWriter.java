@@ -0,0 +1,128 @@
+package com.lucene.server;
+
+/**
+ * Minimal streaming JSON writer for API responses, tracking where commas go between members.
+ */
+class JsonWriter {
+
+    private final StringBuilder sb = new StringBuilder();
+    private boolean needsComma;
+
+    JsonWriter beginObject() {
+        separate();
+        sb.append('{');
+        needsComma = false;
+        return this;
+    }
+
+    JsonWriter endObject() {
+        sb.append('}');
+        needsComma = true;
+        return this;
+    }
+
+    JsonWriter beginArray() {
+        separate();
+        sb.append('[');
+        needsComma = false;
+        return this;
+    }
+
+    JsonWriter endArray() {
+        sb.append(']');
+        needsComma = true;
+        return this;
+    }
+
+    /**
+     * Writes a member name; the next value or container written is its value.
+     */
+    JsonWriter name(String name) {
+        separate();
+        quote(name);
+        sb.append(':');
+        needsComma = false;
+        return this;
+    }
+
+    JsonWriter value(String value) {
+        separate();
+        if (value == null) {
+            sb.append("null");
+        } else {
+            quote(value);
+        }
+        needsComma = true;
+        return this;
+    }
+
+    JsonWriter value(long value) {
+        separate();
+        sb.append(value);
+        needsComma = true;
+        return this;
+    }
+
+    JsonWriter value(double value) {
+        separate();
+        sb.append(Double.isFinite(value) ? Double.toString(value) : "null");
+        needsComma = true;
+        return this;
+    }
+
+    JsonWriter value(boolean value) {
+        separate();
+        sb.append(value);
+        needsComma = true;
+        return this;
+    }
+
+    JsonWriter field(String name, String value) {
+        return name(name).value(value);
+    }
+
+    JsonWriter field(String name, long value) {
+        return name(name).value(value);
+    }
+
+    JsonWriter field(String name, double value) {
+        return name(name).value(value);
+    }
+
+    JsonWriter field(String name, boolean value) {
+        return name(name).value(value);
+    }
+
+    private void separate() {
+        if (needsComma) {
+            sb.append(',');
+        }
+    }
+
+    private void quote(String s) {
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                }
+            }
+        }
+        sb.append('"');
+    }
+
+    @Override
+    public String toString() {
+        return sb.toString();
+    }
+}
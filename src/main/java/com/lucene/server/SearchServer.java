@@ -0,0 +1,499 @@
+package com.lucene.server;
+
+import com.lucene.metrics.Counter;
+import com.lucene.metrics.LatencyHistogram;
+import com.lucene.metrics.Metric;
+import com.lucene.metrics.Metrics;
+import com.lucene.metrics.MetricsSnapshot;
+import com.lucene.model.IndexingSummary;
+import com.lucene.model.WatchResult;
+import com.lucene.searcher.QueryCache;
+import com.lucene.searcher.SearchFilter;
+import com.lucene.searcher.SearchPage;
+import com.lucene.searcher.SearchSort;
+import com.lucene.searcher.SearcherPool;
+import com.lucene.searcher.SnippetMode;
+import com.lucene.service.IndexService;
+import com.lucene.util.Constants;
+import com.lucene.util.logging.CustomLogger;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.lucene.queryparser.classic.ParseException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Logger;
+
+/**
+ * Headless daemon that keeps the indexes of a set of directories open and answers queries over a
+ * JSON HTTP API bound to the loopback address, so many local clients share one warm index instead
+ * of each starting a JVM and opening readers. Every request runs on its own virtual thread.
+ * <p>
+ * Endpoints:
+ * <ul>
+ *     <li>{@code GET /search?q=...[&dir=...][&size=20][&snippets=none|preview|highlight]
+ *     [&ext=java,md][&under=src][&days=7][&sort=relevance|newest|oldest|largest|smallest]};
+ *     {@code q} may be left out when filtering</li>
+ *     <li>{@code POST /index?dir=...[&type=all]} starts a reindex, by default of the file type the directory was
+ *     last indexed with; {@code GET /index?dir=...} reports its progress</li>
+ *     <li>{@code GET /stats} latency histograms, counters and per-directory cache stats</li>
+ *     <li>{@code GET /health}</li>
+ * </ul>
+ * {@code dir} may be left out when only one directory is served. The port defaults to the
+ * {@value #PORT_PROPERTY} system property.
+ */
+public class SearchServer implements AutoCloseable {
+
+    public static final String PORT_PROPERTY = "lucid.server.port";
+    public static final int DEFAULT_PORT = 8765;
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 200;
+    private static final int WARM_UP_HITS = 50;
+    private static final Logger logger = CustomLogger.getLogger(SearchServer.class.getName());
+
+    private final Map<String, ServedDirectory> directories = new LinkedHashMap<>();
+    private final IndexService indexService = new IndexService();
+    private final ExecutorService requestExecutor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("ServerRequest-", 1).factory());
+    private final HttpServer httpServer;
+
+    /**
+     * Opens the index of every directory, starts live sync on unsharded ones if asked, and binds the
+     * API to {@code port} on the loopback address (0 picks a free port). Call {@link #start()} to
+     * begin serving.
+     */
+    public SearchServer(int port, List<String> directoryPaths, boolean liveSync) throws IOException {
+        if (directoryPaths.isEmpty()) {
+            throw new IllegalArgumentException("At least one directory must be served");
+        }
+        try {
+            for (String directoryPath : directoryPaths) {
+                String path = normalize(directoryPath);
+                if (!Files.isDirectory(Paths.get(path))) {
+                    throw new IllegalArgumentException("Not a directory: " + directoryPath);
+                }
+                if (!directories.containsKey(path)) {
+                    directories.put(path, new ServedDirectory(path, indexService, liveSync));
+                }
+            }
+            httpServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        } catch (IOException | RuntimeException e) {
+            closeDirectories();
+            indexService.close();
+            throw e;
+        }
+        httpServer.setExecutor(requestExecutor);
+        httpServer.createContext("/search", exchange -> handle(exchange, this::handleSearch));
+        httpServer.createContext("/index", exchange -> handle(exchange, this::handleIndex));
+        httpServer.createContext("/stats", exchange -> handle(exchange, this::handleStats));
+        httpServer.createContext("/health", exchange -> handle(exchange, this::handleHealth));
+    }
+
+    /**
+     * Starts serving with a startup catch-up, see {@link #start(boolean)}.
+     */
+    public void start() {
+        start(true);
+    }
+
+    /**
+     * Starts serving and runs the configured warm-up queries in the background. With {@code catchUp}, unsharded
+     * indexes are also caught up with changes made while nothing was watching, limited to the file type each
+     * was last indexed with; unchanged files are skipped, but every file is still visited.
+     */
+    public void start(boolean catchUp) {
+        httpServer.start();
+        logger.info("Serving " + directories.keySet() + " on http://" + getAddress().getHostString() + ":" + getPort());
+        if (catchUp) {
+            for (ServedDirectory directory : directories.values()) {
+                if (!directory.isSharded()) {
+                    directory.reindex(directory.getFileType());
+                }
+            }
+        }
+        List<String> warmUpQueries = SearcherPool.configuredWarmUpQueries();
+        if (!warmUpQueries.isEmpty()) {
+            Thread.ofVirtual().name("ServerWarmUp").start(() -> warmUp(warmUpQueries));
+        }
+    }
+
+    public InetSocketAddress getAddress() {
+        return httpServer.getAddress();
+    }
+
+    public int getPort() {
+        return httpServer.getAddress().getPort();
+    }
+
+    /**
+     * Stops accepting requests, waits briefly for those in flight, then closes every index.
+     */
+    @Override
+    public void close() throws IOException {
+        httpServer.stop(1);
+        requestExecutor.shutdown();
+        try {
+            closeDirectories();
+        } finally {
+            indexService.close();
+        }
+        logger.info("Server stopped");
+    }
+
+    private void closeDirectories() throws IOException {
+        IOException failure = null;
+        for (ServedDirectory directory : directories.values()) {
+            try {
+                directory.close();
+            } catch (IOException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private void warmUp(List<String> queries) {
+        for (ServedDirectory directory : directories.values()) {
+            for (String query : queries) {
+                try {
+                    directory.getSearcher().search(query, WARM_UP_HITS);
+                } catch (Exception e) {
+                    logger.warning("Warm-up query '" + query + "' failed for " + directory.getPath() + ": "
+                            + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private Response handleSearch(HttpExchange exchange, Map<String, String> params) throws Exception {
+        requireMethod(exchange, "GET");
+        String query = params.getOrDefault("q", "");
+        ServedDirectory directory = resolveDirectory(params);
+        SearchFilter filter = filter(params, directory);
+        if (query.isBlank() && filter.isEmpty()) {
+            throw new BadRequestException("Missing query parameter 'q'");
+        }
+        SearchSort sort = sort(params.getOrDefault("sort", "relevance"));
+        int size = Math.min(intParam(params, "size", DEFAULT_PAGE_SIZE), MAX_PAGE_SIZE);
+        SnippetMode snippetMode = snippetMode(params.getOrDefault("snippets", "preview"));
+
+        long start = System.nanoTime();
+        SearchPage page;
+        try {
+            page = directory.getSearcher().searchPage(query, filter, sort, size, snippetMode);
+        } catch (ParseException e) {
+            throw new BadRequestException("Invalid query: " + e.getMessage());
+        }
+        long tookMicros = (System.nanoTime() - start) / 1000;
+
+        JsonWriter json = new JsonWriter().beginObject()
+                .field("query", query)
+                .field("directory", directory.getPath())
+                .field("totalHits", page.getTotalHits())
+                .field("totalHitsExact", page.isTotalHitsExact())
+                .field("tookMicros", tookMicros)
+                .name("results").beginArray();
+        for (WatchResult result : page.getResults()) {
+            json.beginObject()
+                    .field("fileName", result.getFileName())
+                    .field("filePath", result.getFilePath())
+                    .field("score", result.getScore());
+            if (snippetMode != SnippetMode.NONE) {
+                json.field("content", result.getContent());
+            }
+            json.endObject();
+        }
+        return Response.ok(json.endArray().endObject());
+    }
+
+    private Response handleIndex(HttpExchange exchange, Map<String, String> params) throws Exception {
+        ServedDirectory directory = resolveDirectory(params);
+        if ("POST".equals(exchange.getRequestMethod())) {
+            String fileType = params.getOrDefault("type", directory.getFileType());
+            if (!Constants.FILE_TYPES_SET.contains(fileType)) {
+                throw new BadRequestException("Unsupported file type: " + fileType);
+            }
+            if (!directory.reindex(fileType)) {
+                return new Response(409, new JsonWriter().beginObject()
+                        .field("error", "Indexing already in progress for " + directory.getPath()).endObject());
+            }
+            return new Response(202, indexStatus(directory));
+        }
+        requireMethod(exchange, "GET");
+        return Response.ok(indexStatus(directory));
+    }
+
+    private JsonWriter indexStatus(ServedDirectory directory) {
+        JsonWriter json = new JsonWriter().beginObject()
+                .field("directory", directory.getPath())
+                .field("sharded", directory.isSharded())
+                .field("liveSync", directory.isLiveSync())
+                .field("indexing", directory.isIndexing())
+                .field("processed", directory.getProcessed())
+                .field("discovered", directory.getDiscovered());
+        IndexingSummary summary = directory.getLastSummary();
+        if (summary != null) {
+            json.name("lastRun").beginObject()
+                    .field("filesIndexed", summary.getFilesIndexed())
+                    .field("filesUnchanged", summary.getFilesSkipped())
+                    .field("filesDeleted", summary.getFilesDeleted())
+                    .field("filesFailed", summary.getFilesFailed())
+                    .field("commits", summary.getCommits())
+                    .field("elapsedMillis", summary.getElapsedMillis())
+                    .field("cancelled", summary.isCancelled())
+                    .endObject();
+        }
+        return json.endObject();
+    }
+
+    private Response handleStats(HttpExchange exchange, Map<String, String> params) throws Exception {
+        requireMethod(exchange, "GET");
+        MetricsSnapshot snapshot = Metrics.snapshot();
+        JsonWriter json = new JsonWriter().beginObject().name("latencies").beginObject();
+        for (Map.Entry<Metric, LatencyHistogram.Snapshot> entry : snapshot.getLatencies().entrySet()) {
+            LatencyHistogram.Snapshot latency = entry.getValue();
+            json.name(entry.getKey().name().toLowerCase(Locale.ROOT)).beginObject()
+                    .field("count", latency.getCount())
+                    .field("meanNanos", latency.getMeanNanos())
+                    .field("p50Nanos", latency.getP50Nanos())
+                    .field("p90Nanos", latency.getP90Nanos())
+                    .field("p99Nanos", latency.getP99Nanos())
+                    .field("p999Nanos", latency.getP999Nanos())
+                    .field("maxNanos", latency.getMaxNanos())
+                    .endObject();
+        }
+        json.endObject().name("counters").beginObject();
+        for (Map.Entry<Counter, Long> entry : snapshot.getCounters().entrySet()) {
+            json.field(entry.getKey().name().toLowerCase(Locale.ROOT), entry.getValue());
+        }
+        json.endObject().name("directories").beginArray();
+        for (ServedDirectory directory : directories.values()) {
+            QueryCache.Stats cache = directory.getSearcher().getQueryCacheStats();
+            json.beginObject()
+                    .field("directory", directory.getPath())
+                    .field("indexing", directory.isIndexing())
+                    .name("queryCache").beginObject()
+                    .field("size", cache.getSize())
+                    .field("capacity", cache.getCapacity())
+                    .field("hits", cache.getHits())
+                    .field("misses", cache.getMisses())
+                    .field("hitRate", cache.getHitRate())
+                    .endObject()
+                    .endObject();
+        }
+        return Response.ok(json.endArray().endObject());
+    }
+
+    private Response handleHealth(HttpExchange exchange, Map<String, String> params) throws Exception {
+        requireMethod(exchange, "GET");
+        return Response.ok(new JsonWriter().beginObject()
+                .field("status", "ok")
+                .field("directories", directories.size())
+                .endObject());
+    }
+
+    private ServedDirectory resolveDirectory(Map<String, String> params) throws BadRequestException {
+        String dir = params.get("dir");
+        if (dir == null) {
+            if (directories.size() == 1) {
+                return directories.values().iterator().next();
+            }
+            throw new BadRequestException("Parameter 'dir' is required when serving several directories");
+        }
+        ServedDirectory directory = directories.get(normalize(dir));
+        if (directory == null) {
+            throw new BadRequestException("Directory is not served: " + dir);
+        }
+        return directory;
+    }
+
+    /**
+     * Builds the filter from {@code ext} (comma separated), {@code under} (relative to the served directory)
+     * and {@code days} (modified within that many days).
+     */
+    private static SearchFilter filter(Map<String, String> params, ServedDirectory directory)
+            throws BadRequestException {
+        SearchFilter.Builder builder = new SearchFilter.Builder();
+        if (params.containsKey("ext")) {
+            builder.extensions(params.get("ext").split(","));
+        }
+        if (params.containsKey("under")) {
+            builder.under(directory.getPath(), params.get("under"));
+        }
+        if (params.containsKey("days")) {
+            builder.modifiedAfter(Instant.now().minus(Duration.ofDays(intParam(params, "days", 1))));
+        }
+        return builder.build();
+    }
+
+    private static SearchSort sort(String value) throws BadRequestException {
+        try {
+            return SearchSort.fromName(value);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException(e.getMessage());
+        }
+    }
+
+    private static SnippetMode snippetMode(String value) throws BadRequestException {
+        try {
+            return SnippetMode.valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Unknown snippet mode: " + value);
+        }
+    }
+
+    private static int intParam(Map<String, String> params, String name, int defaultValue)
+            throws BadRequestException {
+        String value = params.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            int parsed = Integer.parseInt(value);
+            if (parsed < 1) {
+                throw new BadRequestException("Parameter '" + name + "' must be positive");
+            }
+            return parsed;
+        } catch (NumberFormatException e) {
+            throw new BadRequestException("Parameter '" + name + "' must be a number");
+        }
+    }
+
+    private static void requireMethod(HttpExchange exchange, String method) throws MethodNotAllowedException {
+        if (!method.equals(exchange.getRequestMethod())) {
+            throw new MethodNotAllowedException(method);
+        }
+    }
+
+    private static String normalize(String directoryPath) {
+        return Paths.get(directoryPath).toAbsolutePath().normalize().toString();
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> params = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return params;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int idx = pair.indexOf('=');
+            String name = URLDecoder.decode(idx < 0 ? pair : pair.substring(0, idx), StandardCharsets.UTF_8);
+            String value = idx < 0 ? "" : URLDecoder.decode(pair.substring(idx + 1), StandardCharsets.UTF_8);
+            params.putIfAbsent(name, value);
+        }
+        return params;
+    }
+
+    private void handle(HttpExchange exchange, Handler handler) throws IOException {
+        Response response;
+        try {
+            response = handler.handle(exchange, parseQuery(exchange.getRequestURI().getRawQuery()));
+        } catch (BadRequestException e) {
+            response = Response.error(400, e.getMessage());
+        } catch (MethodNotAllowedException e) {
+            exchange.getResponseHeaders().set("Allow", e.getMessage());
+            response = Response.error(405, "Method not allowed");
+        } catch (Exception e) {
+            logger.warning("Request " + exchange.getRequestURI() + " failed: " + e.getMessage());
+            response = Response.error(500, e.getMessage());
+        }
+        byte[] body = response.body().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(response.status(), body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    /**
+     * Runs the server from the command line until the JVM is stopped:
+     * {@code [--port N] [--no-sync] <directory>...}
+     */
+    public static void main(String[] args) throws IOException {
+        int port = Integer.getInteger(PORT_PROPERTY, DEFAULT_PORT);
+        boolean liveSync = true;
+        boolean catchUp = true;
+        List<String> directoryPaths = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--port" -> {
+                    if (i + 1 >= args.length) {
+                        throw new IllegalArgumentException("--port requires a value");
+                    }
+                    port = Integer.parseInt(args[++i]);
+                }
+                case "--no-sync" -> liveSync = false;
+                case "--no-catch-up" -> catchUp = false;
+                default -> directoryPaths.add(args[i]);
+            }
+        }
+        if (directoryPaths.isEmpty()) {
+            System.err.println("Usage: --server [--port N] [--no-sync] [--no-catch-up] <directory>...");
+            System.exit(2);
+        }
+        SearchServer server = new SearchServer(port, directoryPaths, liveSync);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                server.close();
+            } catch (IOException e) {
+                logger.severe("Failed to close server: " + e.getMessage());
+            }
+        }, "ServerShutdown"));
+        server.start(catchUp);
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        Response handle(HttpExchange exchange, Map<String, String> params) throws Exception;
+    }
+
+    private record Response(int status, String body) {
+
+        Response(int status, JsonWriter json) {
+            this(status, json.toString());
+        }
+
+        static Response ok(JsonWriter json) {
+            return new Response(200, json);
+        }
+
+        static Response error(int status, String message) {
+            return new Response(status, new JsonWriter().beginObject().field("error", message).endObject());
+        }
+    }
+
+    private static class BadRequestException extends Exception {
+        BadRequestException(String message) {
+            super(message);
+        }
+    }
+
+    private static class MethodNotAllowedException extends Exception {
+        MethodNotAllowedException(String allowed) {
+            super(allowed);
+        }
+    }
+}
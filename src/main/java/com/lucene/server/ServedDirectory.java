@@ -0,0 +1,180 @@
+package com.lucene.server;
+
+import com.lucene.indexer.IndexSettings;
+import com.lucene.indexer.Indexer;
+import com.lucene.indexer.IndexingListener;
+import com.lucene.model.IndexingSummary;
+import com.lucene.model.WatchResult;
+import com.lucene.searcher.Searcher;
+import com.lucene.service.IndexJob;
+import com.lucene.service.IndexService;
+import com.lucene.util.logging.CustomLogger;
+import com.lucene.watcher.FileWatcher;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * One source directory served by a {@link SearchServer}: its searcher and, for an unsharded index,
+ * the indexer it shares with live sync so changes are searchable near-real-time. Sharded indexes
+ * are served read-only from their last commit and picked up again after a reindex.
+ */
+class ServedDirectory {
+
+    private static final Logger logger = CustomLogger.getLogger(ServedDirectory.class.getName());
+
+    private final String path;
+    private final IndexService indexService;
+    private final Indexer indexer;
+    private final Searcher searcher;
+    private final FileWatcher watcher;
+    private final Thread watcherThread;
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong discovered = new AtomicLong();
+    private IndexJob job;
+    private IndexingSummary lastSummary;
+
+    ServedDirectory(String path, IndexService indexService, boolean liveSync) throws IOException {
+        this.path = path;
+        this.indexService = indexService;
+        if (IndexSettings.load(path).isSharded()) {
+            this.indexer = null;
+            this.searcher = new Searcher(path);
+            this.watcher = null;
+            this.watcherThread = null;
+            return;
+        }
+        this.indexer = new Indexer(path);
+        try {
+            this.searcher = new Searcher(indexer);
+        } catch (IOException e) {
+            indexer.close();
+            throw e;
+        }
+        if (liveSync) {
+            this.watcher = new FileWatcher(path, getFileType(), indexer, searcher,
+                    this::onChangesSynced, Runnable::run);
+            this.watcherThread = new Thread(watcher, "LiveSyncThread-" + path);
+            watcherThread.setDaemon(true);
+            watcherThread.start();
+        } else {
+            this.watcher = null;
+            this.watcherThread = null;
+        }
+    }
+
+    String getPath() {
+        return path;
+    }
+
+    Searcher getSearcher() {
+        return searcher;
+    }
+
+    boolean isSharded() {
+        return indexer == null;
+    }
+
+    boolean isLiveSync() {
+        return watcher != null;
+    }
+
+    /**
+     * File type the directory was last indexed with.
+     */
+    String getFileType() {
+        return IndexSettings.load(path).getFileType();
+    }
+
+    /**
+     * Starts indexing the directory unless a run is already in progress. An unsharded index is updated
+     * through the served indexer, so the searcher sees files as they are added; a sharded one is
+     * rebuilt by its own indexer and the searcher is refreshed once it commits.
+     *
+     * @return false if a run was already in progress
+     */
+    synchronized boolean reindex(String fileType) {
+        if (job != null && !job.getFuture().isDone()) {
+            return false;
+        }
+        processed.set(0);
+        discovered.set(0);
+        IndexingListener progress = (done, found) -> {
+            processed.set(done);
+            discovered.set(found);
+        };
+        IndexJob started = isSharded()
+                ? indexService.indexDirectory(path, IndexSettings.load(path).getProfile(), fileType, progress)
+                : indexService.indexDirectory(indexer, path, fileType, progress);
+        started.getFuture().whenComplete((summary, error) -> onIndexed(summary, error));
+        job = started;
+        return true;
+    }
+
+    synchronized boolean isIndexing() {
+        return job != null && !job.getFuture().isDone();
+    }
+
+    long getProcessed() {
+        return processed.get();
+    }
+
+    long getDiscovered() {
+        return discovered.get();
+    }
+
+    synchronized IndexingSummary getLastSummary() {
+        return lastSummary;
+    }
+
+    private void onIndexed(IndexingSummary summary, Throwable error) {
+        if (error != null) {
+            logger.severe("Indexing failed for " + path + ": " + error.getMessage());
+            return;
+        }
+        try {
+            searcher.refresh();
+        } catch (IOException e) {
+            logger.warning("Failed to refresh searcher for " + path + ": " + e.getMessage());
+        }
+        synchronized (this) {
+            lastSummary = summary;
+        }
+    }
+
+    private void onChangesSynced(List<WatchResult> batch) {
+        logger.info("Live sync applied " + batch.size() + " file changes in " + path);
+    }
+
+    /**
+     * Cancels indexing, stops live sync and closes the searcher before the indexer whose writer it shares.
+     */
+    void close() throws IOException {
+        IndexJob running;
+        synchronized (this) {
+            running = job;
+        }
+        if (running != null) {
+            running.cancel();
+            running.getFuture().exceptionally(error -> null).join();
+        }
+        if (watcher != null) {
+            watcher.stop();
+            // Batches the thread flushes after stop() are dropped, so the index may close before it ends
+            try {
+                watcherThread.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        try {
+            searcher.close();
+        } finally {
+            if (indexer != null) {
+                indexer.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.lucene.service;
+
+import com.lucene.indexer.IndexingListener;
+import com.lucene.model.IndexingSummary;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Handle to a directory indexing run started by {@link IndexService}.
+ * <p>
+ * Cancelling stops the run at the next file; the files indexed so far are committed and the future
+ * still completes normally, with {@link IndexingSummary#isCancelled()} set.
+ */
+public class IndexJob {
+
+    private final CompletableFuture<IndexingSummary> future = new CompletableFuture<>();
+    private final AtomicBoolean cancelled = new AtomicBoolean();
+    private final IndexingListener listener;
+
+    IndexJob(IndexingListener progress) {
+        this.listener = new IndexingListener() {
+            @Override
+            public void onProgress(long processed, long discovered) {
+                progress.onProgress(processed, discovered);
+            }
+
+            @Override
+            public boolean isCancelled() {
+                return cancelled.get() || progress.isCancelled();
+            }
+        };
+    }
+
+    public CompletableFuture<IndexingSummary> getFuture() {
+        return future;
+    }
+
+    public void cancel() {
+        cancelled.set(true);
+    }
+
+    public boolean isCancelled() {
+        return listener.isCancelled();
+    }
+
+    IndexingListener getListener() {
+        return listener;
+    }
+}
@@ -0,0 +1,134 @@
+package com.lucene.service;
+
+import com.lucene.indexer.IndexProfile;
+import com.lucene.indexer.IndexSettings;
+import com.lucene.indexer.Indexer;
+import com.lucene.indexer.IndexingListener;
+import com.lucene.indexer.ShardRouting;
+import com.lucene.indexer.ShardedIndexer;
+import com.lucene.model.IndexingSummary;
+import com.lucene.model.WatchResult;
+import com.lucene.util.logging.CustomLogger;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+/**
+ * Runs directory indexing on virtual threads, reporting progress to an {@link IndexingListener}
+ * and returning an {@link IndexJob} that can be cancelled. The indexing itself still uses the
+ * indexer's worker pool; the virtual thread only drives the walk and the final commit.
+ * Live sync is started and stopped here too, so neither blocks the caller's thread.
+ */
+public class IndexService implements AutoCloseable {
+
+    private static final Logger logger = CustomLogger.getLogger(IndexService.class.getName());
+
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("IndexTask-", 1).factory());
+
+    /**
+     * Indexes a directory into its own on-disk index, keeping the shard count saved for it.
+     */
+    public IndexJob indexDirectory(String directoryPath, IndexProfile profile, String fileType,
+                                   IndexingListener progress) {
+        return indexDirectory(directoryPath, profile, IndexSettings.load(directoryPath).getShardCount(), fileType,
+                progress);
+    }
+
+    /**
+     * Indexes a directory into its own on-disk index, split into {@code shardCount} shards when more
+     * than one. The indexer is opened on the background thread and closed once the run ends,
+     * releasing the index write locks.
+     */
+    public IndexJob indexDirectory(String directoryPath, IndexProfile profile, int shardCount, String fileType,
+                                   IndexingListener progress) {
+        return submit(progress, job -> {
+            if (shardCount > 1) {
+                ShardRouting routing = IndexSettings.load(directoryPath).getShardRouting();
+                ShardedIndexer indexer = new ShardedIndexer(directoryPath, profile, shardCount, routing);
+                try {
+                    return indexer.indexDirectory(directoryPath, fileType, job.getListener());
+                } finally {
+                    indexer.close();
+                }
+            }
+            Indexer indexer = new Indexer(directoryPath, profile);
+            try {
+                return indexer.indexDirectory(directoryPath, fileType, job.getListener());
+            } finally {
+                indexer.close();
+            }
+        });
+    }
+
+    /**
+     * Indexes a directory through an indexer the caller owns and keeps open, e.g. one shared with live sync.
+     */
+    public IndexJob indexDirectory(Indexer indexer, String directoryPath, String fileType, IndexingListener progress) {
+        return submit(progress, job -> indexer.indexDirectory(directoryPath, fileType, job.getListener()));
+    }
+
+    /**
+     * Opens a directory's index and starts a {@link LiveSync} on it in the background. Registering the
+     * watcher visits every directory of the tree. Only files of {@code fileType} are synced. Applied
+     * batches go to {@code onBatch} through {@code outputExecutor}.
+     */
+    public CompletableFuture<LiveSync> startLiveSync(String directoryPath, String fileType,
+                                                     Consumer<List<WatchResult>> onBatch, Executor outputExecutor) {
+        CompletableFuture<LiveSync> future = new CompletableFuture<>();
+        executor.execute(() -> {
+            try {
+                future.complete(LiveSync.start(directoryPath, fileType, onBatch, outputExecutor));
+            } catch (Throwable t) {
+                logger.warning("Failed to start live sync: " + t.getMessage());
+                future.completeExceptionally(t);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Stops a live sync in the background, committing the changes it still had pending and closing its index.
+     */
+    public CompletableFuture<Void> stopLiveSync(LiveSync sync) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        executor.execute(() -> {
+            try {
+                sync.stop();
+                future.complete(null);
+            } catch (Throwable t) {
+                logger.warning("Failed to stop live sync: " + t.getMessage());
+                future.completeExceptionally(t);
+            }
+        });
+        return future;
+    }
+
+    private IndexJob submit(IndexingListener progress, IndexTask task) {
+        IndexJob job = new IndexJob(progress);
+        executor.execute(() -> {
+            try {
+                job.getFuture().complete(task.run(job));
+            } catch (Throwable t) {
+                logger.warning("Indexing failed: " + t.getMessage());
+                job.getFuture().completeExceptionally(t);
+            }
+        });
+        return job;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    @FunctionalInterface
+    private interface IndexTask {
+        IndexingSummary run(IndexJob job) throws Exception;
+    }
+}
@@ -0,0 +1,40 @@
+package com.lucene.service;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Delivers the most recent published value to a consumer on a target executor, typically
+ * {@code Platform::runLater}. Values published while a delivery is still pending replace each
+ * other, so a fast producer such as the indexing workers posts at most one task at a time.
+ */
+public class LatestValuePublisher<T> {
+
+    private final Executor executor;
+    private final Consumer<T> consumer;
+    private final AtomicReference<T> latest = new AtomicReference<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    public LatestValuePublisher(Executor executor, Consumer<T> consumer) {
+        this.executor = executor;
+        this.consumer = consumer;
+    }
+
+    public void publish(T value) {
+        latest.set(value);
+        if (scheduled.compareAndSet(false, true)) {
+            executor.execute(this::deliver);
+        }
+    }
+
+    private void deliver() {
+        // Clear the flag first so a value published during delivery schedules another one
+        scheduled.set(false);
+        T value = latest.getAndSet(null);
+        if (value != null) {
+            consumer.accept(value);
+        }
+    }
+}
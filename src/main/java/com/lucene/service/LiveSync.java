@@ -0,0 +1,79 @@
+package com.lucene.service;
+
+import com.lucene.indexer.Indexer;
+import com.lucene.model.WatchResult;
+import com.lucene.searcher.Searcher;
+import com.lucene.watcher.FileWatcher;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+/**
+ * A running live sync of one directory: the indexer and near-real-time searcher it keeps up to date and
+ * the watcher thread feeding them. Started and stopped through {@link IndexService}, since registering
+ * the watched tree and flushing pending changes on stop both touch the whole directory.
+ */
+public class LiveSync {
+
+    private static final long STOP_TIMEOUT_MILLIS = 1000;
+
+    private final Indexer indexer;
+    private final Searcher searcher;
+    private final FileWatcher watcher;
+    private final Thread thread;
+
+    private LiveSync(Indexer indexer, Searcher searcher, FileWatcher watcher, Thread thread) {
+        this.indexer = indexer;
+        this.searcher = searcher;
+        this.watcher = watcher;
+        this.thread = thread;
+    }
+
+    static LiveSync start(String directoryPath, String fileType, Consumer<List<WatchResult>> onBatch,
+                          Executor outputExecutor) throws IOException {
+        Indexer indexer = new Indexer(directoryPath);
+        Searcher searcher = null;
+        try {
+            searcher = new Searcher(indexer);
+            FileWatcher watcher = new FileWatcher(directoryPath, fileType, indexer, searcher, onBatch, outputExecutor);
+            Thread thread = new Thread(watcher, "LiveSyncThread");
+            thread.setDaemon(true);
+            thread.start();
+            return new LiveSync(indexer, searcher, watcher, thread);
+        } catch (IOException | RuntimeException e) {
+            if (searcher != null) {
+                searcher.close();
+            }
+            indexer.close();
+            throw e;
+        }
+    }
+
+    public Indexer getIndexer() {
+        return indexer;
+    }
+
+    public Searcher getSearcher() {
+        return searcher;
+    }
+
+    /**
+     * Stops watching, applies and commits the changes still pending, then closes the searcher and the indexer.
+     */
+    void stop() throws IOException {
+        watcher.stop();
+        // Batches the thread flushes after stop() are dropped, so the index may close before it ends
+        try {
+            thread.join(STOP_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            searcher.close();
+        } finally {
+            indexer.close();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.lucene.service;
+
+import com.lucene.searcher.SearchFilter;
+import com.lucene.searcher.SearchPage;
+import com.lucene.searcher.SearchSort;
+import com.lucene.searcher.Searcher;
+import com.lucene.searcher.SnippetMode;
+import com.lucene.util.logging.CustomLogger;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BooleanSupplier;
+import java.util.logging.Logger;
+
+/**
+ * Runs searches on virtual threads so callers such as the UI thread never block on Lucene.
+ * Only the latest request matters: submitting a search or page cancels the one still in flight,
+ * which stops loading hits at the next document and completes its future as cancelled.
+ */
+public class SearchService implements AutoCloseable {
+
+    private static final Logger logger = CustomLogger.getLogger(SearchService.class.getName());
+
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("SearchTask-", 1).factory());
+    private CompletableFuture<SearchPage> current;
+
+    /**
+     * Starts a search for the first page of hits, superseding any search in flight. The reader is pinned so
+     * {@link #nextPage(Searcher, SearchPage)} continues on the same view of the index.
+     */
+    public CompletableFuture<SearchPage> search(Searcher searcher, String queryString, int pageSize,
+                                                SnippetMode snippetMode) {
+        return submit(cancelled -> searcher.searchPage(queryString, SearchFilter.NONE, SearchSort.RELEVANCE,
+                pageSize, snippetMode, cancelled, true));
+    }
+
+    /**
+     * Starts loading the page after {@code previous}, superseding any search in flight.
+     */
+    public CompletableFuture<SearchPage> nextPage(Searcher searcher, SearchPage previous) {
+        return submit(cancelled -> searcher.nextPage(previous, cancelled));
+    }
+
+    /**
+     * Cancels the search in flight, if any.
+     */
+    public synchronized void cancel() {
+        if (current != null) {
+            current.cancel(false);
+            current = null;
+        }
+    }
+
+    private synchronized CompletableFuture<SearchPage> submit(PageTask task) {
+        cancel();
+        CompletableFuture<SearchPage> future = new CompletableFuture<>();
+        current = future;
+        executor.execute(() -> {
+            if (future.isDone()) {
+                return;
+            }
+            try {
+                future.complete(task.run(future::isCancelled));
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            }
+        });
+        return future;
+    }
+
+    @Override
+    public void close() {
+        cancel();
+        executor.shutdown();
+        logger.fine("Search service closed");
+    }
+
+    @FunctionalInterface
+    private interface PageTask {
+        SearchPage run(BooleanSupplier cancelled) throws Exception;
+    }
+}
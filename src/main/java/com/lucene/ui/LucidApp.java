@@ -1,5 +1,6 @@
 package com.lucene.ui;
 
+import com.lucene.indexer.ScratchDirectory;
 import com.lucene.ui.views.LogView;
 import com.lucene.ui.views.SearchView;
 import com.lucene.ui.views.WatchView;
@@ -10,12 +11,15 @@ import javafx.scene.control.Tab;
 import javafx.scene.control.TabPane;
 import javafx.stage.Stage;
 import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+
+import java.io.IOException;
 
 public class LucidApp extends Application {
 
     private static final String APP_NAME = "LucidSearch";
     private final LogView logView = new LogView();
-    private final ByteBuffersDirectory index = new ByteBuffersDirectory();
+    private Directory index;
     public LogAppender logAppender = new LogAppender(APP_NAME);
     private SearchView searchView;
 
@@ -23,6 +27,7 @@ public class LucidApp extends Application {
     public void start(Stage primaryStage) {
 
         primaryStage.setTitle(APP_NAME);
+        index = openScratchIndex();
         searchView = new SearchView(primaryStage, logView, index);
         searchView.init();
         WatchView watchView = new WatchView(primaryStage, logView);
@@ -41,13 +46,33 @@ public class LucidApp extends Application {
         primaryStage.show();
     }
 
+    /**
+     * Opens the scratch index on memory-mapped temp files, falling back to the heap if no temp directory is usable.
+     */
+    private Directory openScratchIndex() {
+        try {
+            return ScratchDirectory.create();
+        } catch (IOException e) {
+            logView.appendLog(logAppender.warning("Failed to create scratch index on disk, keeping it in memory: "
+                    + e.getMessage()));
+            return new ByteBuffersDirectory();
+        }
+    }
+
     /**
      * Clean up resources on application exit.
      */
     @Override
     public void stop() throws Exception {
-        if (searchView != null) {
-            searchView.close();
+        try {
+            if (searchView != null) {
+                searchView.close();
+            }
+        } finally {
+            if (index != null) {
+                // Deletes the scratch index's temp files
+                index.close();
+            }
         }
         super.stop();
     }
@@ -1,9 +1,11 @@
 package com.lucene.ui.views;
 
+import com.lucene.metrics.Metrics;
 import javafx.geometry.Insets;
 import javafx.scene.control.Button;
 import javafx.scene.control.TextArea;
 import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.HBox;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -12,6 +14,7 @@ public class LogView extends BaseView {
 
     private static final String VIEW_NAME = "LogView";
     private static final String CLEAR_LOGS = "Clear Logs";
+    private static final String SHOW_METRICS = "Show Metrics";
     public List<String> logs = new ArrayList<>();
     private TextArea logTextArea;
 
@@ -27,10 +30,12 @@ public class LogView extends BaseView {
         logTextArea.setWrapText(true);
         Button refreshBtn = new Button(CLEAR_LOGS);
         refreshBtn.setOnAction(e -> clearLogs());
+        Button metricsBtn = new Button(SHOW_METRICS);
+        metricsBtn.setOnAction(e -> showMetrics());
 
         BorderPane pane = new BorderPane();
         pane.setCenter(logTextArea);
-        pane.setBottom(refreshBtn);
+        pane.setBottom(new HBox(10, refreshBtn, metricsBtn));
         return pane;
     }
 
@@ -39,6 +44,10 @@ public class LogView extends BaseView {
         logTextArea.clear();
     }
 
+    public void showMetrics() {
+        appendLog("Metrics snapshot:\n" + Metrics.snapshot());
+    }
+
     public void appendLog(String log) {
         logs.add(log);
         logTextArea.appendText(log + "\n");
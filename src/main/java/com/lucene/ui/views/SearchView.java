@@ -1,7 +1,21 @@
 package com.lucene.ui.views;
 
+import com.lucene.indexer.IndexProfile;
+import com.lucene.indexer.IndexSettings;
 import com.lucene.indexer.Indexer;
+import com.lucene.indexer.IndexingListener;
+import com.lucene.model.IndexingSummary;
+import com.lucene.model.WatchResult;
+import com.lucene.searcher.SearchPage;
+import com.lucene.searcher.SnippetMode;
 import com.lucene.searcher.Searcher;
+import com.lucene.searcher.SearcherPool;
+import com.lucene.searcher.StartupSnapshot;
+import com.lucene.service.IndexJob;
+import com.lucene.service.IndexService;
+import com.lucene.service.LatestValuePublisher;
+import com.lucene.service.LiveSync;
+import com.lucene.service.SearchService;
 import com.lucene.util.Constants;
 import com.lucene.util.FileUtil;
 import com.lucene.util.MathUtil;
@@ -13,22 +27,30 @@ import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
 import javafx.stage.DirectoryChooser;
 import javafx.stage.Stage;
-import org.apache.lucene.document.Document;
-import org.apache.lucene.search.ScoreDoc;
-import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
 
 import java.io.File;
+import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.prefs.Preferences;
 
 public class SearchView extends BaseView {
 
     private static final String VIEW_NAME = "SearchView";
     private static final String PREF_INDEXED_DIRS = "indexedDirectories";
+    private static final int PAGE_SIZE = 50;
+    private static final List<Integer> SHARD_COUNTS = List.of(1, 2, 4, 8);
+    private static final int INDEX_CANCEL_TIMEOUT_SEC = 30;
 
     private final DirectoryChooser directoryChooser = new DirectoryChooser();
     private final ListView<String> resultsView = new ListView<>();
@@ -38,19 +60,48 @@ public class SearchView extends BaseView {
     private final Button resetPrefsBtn = new Button("Clear Indexes");
     private final ComboBox<String> fileTypeComboBox = new ComboBox<>();
     private final ComboBox<String> indexedDirectoriesComboBox = new ComboBox<>();
+    private final ComboBox<String> profileComboBox = new ComboBox<>();
+    private final ComboBox<Integer> shardsComboBox = new ComboBox<>();
+    private final CheckBox liveSyncCheckBox = new CheckBox("Live sync");
+    private final CheckBox allDirectoriesCheckBox = new CheckBox("Search all directories");
+    private final CheckBox snippetsCheckBox = new CheckBox("Show snippets");
+    private final ProgressBar indexProgressBar = new ProgressBar(0);
+    private final Label indexProgressLabel = new Label();
+    private final Button cancelIndexBtn = new Button("Cancel");
+    private final HBox indexProgressBox = new HBox(10, indexProgressBar, indexProgressLabel, cancelIndexBtn);
+    private final SearchService searchService = new SearchService();
+    private final IndexService indexService = new IndexService();
+    private final SearcherPool searcherPool = new SearcherPool();
+    private final StartupSnapshot startupSnapshot = StartupSnapshot.load();
     private final Stage primaryStage;
-    private final ByteBuffersDirectory inMemoryIndex;
+    private final Directory scratchIndex;
     private final Preferences prefs = Preferences.userNodeForPackage(SearchView.class);
 
     private String currentDirectory;
     private boolean usingInMemoryIndex = true;
     private Indexer indexer;
     private Searcher searcher;
+    /**
+     * Whether {@link #searcher} came from {@link #searcherPool} and must be released rather than closed.
+     */
+    private boolean searcherPooled;
+    private LiveSync liveSync;
+    /**
+     * Live sync being started in the background, until it is adopted by the view.
+     */
+    private CompletableFuture<LiveSync> liveSyncStarting;
+    /**
+     * Completes once the last stopped live sync has committed and released its index.
+     */
+    private CompletableFuture<Void> liveSyncStopped = CompletableFuture.completedFuture(null);
+    private SearchPage currentPage;
+    private CompletableFuture<SearchPage> pendingSearch;
+    private IndexJob indexJob;
 
-    public SearchView(Stage primaryStage, LogView logView, ByteBuffersDirectory index) {
+    public SearchView(Stage primaryStage, LogView logView, Directory index) {
         super(logView);
         this.primaryStage = primaryStage;
-        this.inMemoryIndex = index;
+        this.scratchIndex = index;
     }
 
     public void init() {
@@ -58,17 +109,47 @@ public class SearchView extends BaseView {
         directoryChooser.setTitle("Select Directory to Index");
         fileTypeComboBox.setItems(FXCollections.observableArrayList(Constants.SUPPORTED_FILE_TYPES));
         fileTypeComboBox.getSelectionModel().selectFirst();
+        profileComboBox.setItems(FXCollections.observableArrayList(IndexProfile.names()));
+        profileComboBox.getSelectionModel().select(IndexProfile.DEFAULT.getName());
+        shardsComboBox.setItems(FXCollections.observableArrayList(SHARD_COUNTS));
+        shardsComboBox.setValue(1);
+        shardsComboBox.setTooltip(new Tooltip("Index shards; large trees index faster split into several"));
 
         indexedDirectoriesComboBox.setPromptText("Indexed Directories");
         loadIndexedDirectories();
+        // Open the saved indexes in the background, most recently used first, and replay their
+        // hot queries so the first switch and query are fast
+        List<String> configuredQueries = SearcherPool.configuredWarmUpQueries();
+        searcherPool.warmUp(startupSnapshot.byPriority(indexedDirectoriesComboBox.getItems()), dir -> {
+            List<String> queries = new ArrayList<>(startupSnapshot.getHotQueries(dir));
+            queries.addAll(configuredQueries);
+            return queries;
+        });
         indexedDirectoriesComboBox.setOnAction(event -> switchToSelectedDirectory());
         searchBtn.setOnAction(event -> search(queryField, resultsView));
         indexBtn.setOnAction(event -> selectDirectoryAndIndex());
         clearBtn.setOnAction(event -> clearResults());
         resetPrefsBtn.setOnAction(event -> resetPreferences());
+        liveSyncCheckBox.setOnAction(event -> toggleLiveSync());
+        allDirectoriesCheckBox.setOnAction(event -> toggleSearchAllDirectories());
+        cancelIndexBtn.setOnAction(event -> cancelIndexing());
+        indexProgressBox.setVisible(false);
+        indexProgressBox.setManaged(false);
+        resultsView.setCellFactory(list -> new ListCell<>() {
+            @Override
+            protected void updateItem(String item, boolean empty) {
+                super.updateItem(item, empty);
+                setText(empty ? null : item);
+                // Rendering the last loaded row means the user scrolled to the end: fetch more
+                if (!empty && getIndex() == list.getItems().size() - 1) {
+                    Platform.runLater(SearchView.this::loadNextPage);
+                }
+            }
+        });
 
-        HBox searchBox = new HBox(10, queryField, searchBtn);
-        HBox indexBox = new HBox(10, indexBtn, indexedDirectoriesComboBox);
+        HBox searchBox = new HBox(10, queryField, searchBtn, snippetsCheckBox);
+        HBox indexBox = new HBox(10, indexBtn, profileComboBox, shardsComboBox, indexedDirectoriesComboBox, allDirectoriesCheckBox,
+                liveSyncCheckBox);
         HBox clearButtonBox = new HBox(10, clearBtn, resetPrefsBtn);
 
         VBox searchVBox = new VBox(10,
@@ -76,6 +157,7 @@ public class SearchView extends BaseView {
                 searchBox,
                 new Label("Index new directory or choose already indexed:"),
                 indexBox,
+                indexProgressBox,
                 resultsView,
                 clearButtonBox
         );
@@ -85,15 +167,18 @@ public class SearchView extends BaseView {
     }
 
     /**
-     * Initializes components for in-memory indexing and searching.
+     * Initializes components for indexing and searching the scratch index, used until an indexed directory is chosen.
      */
     private void initializeInMemoryComponents() {
         try {
             logView.appendLog(logAppender.debug("Initializing in-memory components..."));
-            indexer = new Indexer(inMemoryIndex);
-            searcher = new Searcher(inMemoryIndex);
+            closeComponents();
+            allDirectoriesCheckBox.setSelected(false);
+            indexer = new Indexer(scratchIndex);
+            searcher = new Searcher(indexer);
             usingInMemoryIndex = true;
             currentDirectory = null;
+            liveSyncCheckBox.setDisable(true);
             searchBtn.setDisable(false);
         } catch (Exception e) {
             String errorMessage = "Failed to initialize in-memory components: " + e.getMessage();
@@ -112,7 +197,7 @@ public class SearchView extends BaseView {
         if (!savedDirs.isEmpty()) {
             String[] dirs = savedDirs.split(";");
             for (String dir : dirs) {
-                if (FileUtil.isValidDirectory(dir) && Searcher.isValidIndexDirectory(dir)) {
+                if (FileUtil.isValidDirectory(dir) && isIndexed(dir)) {
                     validDirs.add(dir);
                 } else {
                     logView.appendLog(logAppender.warning("Removing invalid or missing index directory: " + dir));
@@ -123,6 +208,14 @@ public class SearchView extends BaseView {
         indexedDirectoriesComboBox.setItems(FXCollections.observableArrayList(validDirs));
     }
 
+    /**
+     * Whether a saved directory should be listed. Directories the startup snapshot saw with an index are
+     * trusted without touching the index; {@link #switchToSelectedDirectory()} checks it when it is opened.
+     */
+    private boolean isIndexed(String directoryPath) {
+        return startupSnapshot.wasIndexed(directoryPath) || Searcher.isValidIndexDirectory(directoryPath);
+    }
+
     /**
      * Saves indexed directories to preferences.
      */
@@ -150,21 +243,27 @@ public class SearchView extends BaseView {
             return;
         }
         try {
-            if (searcher != null) {
-                searcher.close();
-            }
-            if (indexer != null && !usingInMemoryIndex) {
-                indexer.close();
-            }
             if (!Searcher.isValidIndexDirectory(selectedPath)) {
                 logView.appendLog(logAppender.error("Not a valid Lucene index: " + selectedPath));
-                Platform.runLater(() -> showAlert(Alert.AlertType.ERROR,
-                        "No index exists for the selected directory."));
+                Platform.runLater(() -> {
+                    // Listed from a stale startup snapshot; drop it like an invalid directory at startup
+                    indexedDirectoriesComboBox.getItems().remove(selectedPath);
+                    saveIndexedDirectories();
+                    showAlert(Alert.AlertType.ERROR, "No index exists for the selected directory.");
+                });
                 return;
             }
-            searcher = new Searcher(selectedPath);
+            closeComponents();
+            allDirectoriesCheckBox.setSelected(false);
+            searcher = searcherPool.acquire(selectedPath);
+            searcherPooled = true;
+            startupSnapshot.recordUse(selectedPath);
+            IndexSettings settings = IndexSettings.load(selectedPath);
+            profileComboBox.getSelectionModel().select(settings.getProfile().getName());
+            shardsComboBox.setValue(settings.getShardCount());
             currentDirectory = selectedPath;
             usingInMemoryIndex = false;
+            liveSyncCheckBox.setDisable(false);
             logView.appendLog(logAppender.info("Switched searcher to directory: " + selectedPath));
             searchBtn.setDisable(false);
         } catch (Exception e) {
@@ -175,7 +274,47 @@ public class SearchView extends BaseView {
     }
 
     /**
-     * Performs a search with the given query and updates the results view.
+     * Switches to one searcher over every indexed directory, or back to the selected directory.
+     */
+    private void toggleSearchAllDirectories() {
+        if (!allDirectoriesCheckBox.isSelected()) {
+            if (indexedDirectoriesComboBox.getSelectionModel().getSelectedItem() != null) {
+                switchToSelectedDirectory();
+            } else {
+                initializeInMemoryComponents();
+            }
+            return;
+        }
+        List<String> directories = new ArrayList<>();
+        for (String dir : indexedDirectoriesComboBox.getItems()) {
+            if (Searcher.isValidIndexDirectory(dir)) {
+                directories.add(dir);
+            }
+        }
+        if (directories.isEmpty()) {
+            allDirectoriesCheckBox.setSelected(false);
+            logView.appendLog(logAppender.warning("No indexed directories to search."));
+            return;
+        }
+        try {
+            closeComponents();
+            searcher = new Searcher(directories);
+            currentDirectory = null;
+            usingInMemoryIndex = false;
+            liveSyncCheckBox.setDisable(true);
+            searchBtn.setDisable(false);
+            logView.appendLog(logAppender.info("Searching all " + directories.size() + " indexed directories"));
+        } catch (Exception e) {
+            String errorMessage = "Failed to open all directories: " + e.getMessage();
+            logView.appendLog(logAppender.error(errorMessage));
+            Platform.runLater(() -> showAlert(Alert.AlertType.ERROR, errorMessage));
+            initializeInMemoryComponents();
+        }
+    }
+
+    /**
+     * Starts a search with the given query in the background; the results view is filled in once it completes.
+     * A new search supersedes the previous one.
      */
     private void search(TextField queryField, ListView<String> resultsView) {
         if (queryField == null || resultsView == null) {
@@ -192,31 +331,81 @@ public class SearchView extends BaseView {
             showAlert(Alert.AlertType.ERROR, "Search engine not initialized");
             return;
         }
-        try {
-            ScoreDoc[] hits = searcher.getSearch(query, 10000);
-            Platform.runLater(() -> {
-                for (ScoreDoc hit : hits) {
-                    try {
-                        Document doc = searcher.getDocument(hit);
-                        resultsView.getItems().add("* Score: " + MathUtil.foundUpToThousandth(hit.score) +
-                                "     [" + doc.get("filename") + "]     " + doc.get("path"));
-                    } catch (Exception e) {
-                        logView.appendLog(logAppender.error("Error retrieving document: " + e.getMessage()));
-                    }
+        SnippetMode snippetMode = snippetsCheckBox.isSelected() ? SnippetMode.HIGHLIGHT : SnippetMode.NONE;
+        if (currentDirectory != null) {
+            startupSnapshot.recordQuery(currentDirectory, query);
+        }
+        CompletableFuture<SearchPage> future = searchService.search(searcher, query, PAGE_SIZE, snippetMode);
+        pendingSearch = future;
+        future.whenComplete((page, error) -> Platform.runLater(() -> {
+            if (pendingSearch != future) {
+                return;
+            }
+            pendingSearch = null;
+            if (error != null) {
+                if (!(error instanceof CancellationException)) {
+                    String errorMessage = "Search failed: " + error.getMessage();
+                    showAlert(Alert.AlertType.ERROR, errorMessage);
+                    logView.appendLog(logAppender.error(errorMessage));
                 }
-                logView.appendLog(logAppender.info("Search complete. Number of hits: " + hits.length));
-            });
-        } catch (Exception e) {
-            String errorMessage = "Search failed: " + e.getMessage();
-            Platform.runLater(() -> showAlert(Alert.AlertType.ERROR, errorMessage));
-            logView.appendLog(logAppender.error(errorMessage));
+                return;
+            }
+            currentPage = page;
+            showPage(page);
+            logView.appendLog(logAppender.info("Search complete. Number of hits: " + page.getTotalHits()
+                    + (page.isTotalHitsExact() ? "" : "+")));
+        }));
+    }
+
+    /**
+     * Starts loading the next page of the current search, if there is one and no load is pending.
+     */
+    private void loadNextPage() {
+        SearchPage page = currentPage;
+        if (page == null || !page.hasMore() || searcher == null || pendingSearch != null) {
+            return;
         }
+        CompletableFuture<SearchPage> future = searchService.nextPage(searcher, page);
+        pendingSearch = future;
+        future.whenComplete((next, error) -> Platform.runLater(() -> {
+            // Ignore the page if a new search started meanwhile
+            if (pendingSearch != future) {
+                return;
+            }
+            pendingSearch = null;
+            if (error != null) {
+                currentPage = null;
+                if (!(error instanceof CancellationException)) {
+                    logView.appendLog(logAppender.error("Failed to load more results: " + error.getMessage()));
+                }
+                return;
+            }
+            currentPage = next;
+            showPage(next);
+        }));
+    }
+
+    private void showPage(SearchPage page) {
+        List<String> rows = new ArrayList<>(page.getResults().size());
+        for (WatchResult hit : page.getResults()) {
+            String row = "* Score: " + MathUtil.foundUpToThousandth(hit.getScore()) +
+                    "     [" + hit.getFileName() + "]     " + hit.getFilePath();
+            if (hit.getContent() != null && !hit.getContent().isEmpty()) {
+                row += "\n    " + hit.getContent();
+            }
+            rows.add(row);
+        }
+        resultsView.getItems().addAll(rows);
     }
 
     /**
-     * Opens a directory chooser to select a directory and indexes it.
+     * Opens a directory chooser to select a directory and indexes it in the background.
      */
     private void selectDirectoryAndIndex() {
+        if (indexJob != null) {
+            logView.appendLog(logAppender.warning("Indexing already in progress."));
+            return;
+        }
         File selectedDirectory = directoryChooser.showDialog(primaryStage);
         if (selectedDirectory == null) {
             logView.appendLog(logAppender.warning("No directory selected."));
@@ -224,36 +413,129 @@ public class SearchView extends BaseView {
         }
         String directoryPath = selectedDirectory.getAbsolutePath();
         String fileType = fileTypeComboBox.getSelectionModel().getSelectedItem();
+        IndexProfile profile = IndexProfile.fromName(profileComboBox.getSelectionModel().getSelectedItem());
+        int shardCount = shardsComboBox.getValue();
         try {
             Path dataDir = Paths.get(System.getProperty("user.dir"), "data");
             Files.createDirectories(dataDir);
-            Indexer directoryIndexer = null;
-            try {
-                directoryIndexer = new Indexer(directoryPath);
-                directoryIndexer.indexDirectory(directoryPath, fileType);
-                // Add to indexed directories if not already there
-                if (!indexedDirectoriesComboBox.getItems().contains(directoryPath)) {
-                    indexedDirectoriesComboBox.getItems().add(directoryPath);
-                    saveIndexedDirectories();
-                }
-                indexedDirectoriesComboBox.getSelectionModel().select(directoryPath);
-                switchToSelectedDirectory();
-                
-                Platform.runLater(() -> showAlert(Alert.AlertType.INFORMATION, "Indexing complete!"));
-                logView.appendLog(logAppender.info("Indexing complete for directory: " + directoryPath));
-            } finally {
-                if (directoryIndexer != null) {
-                    directoryIndexer.close();
-                }
-            }
-        } catch (Exception e) {
+            releaseSearchersOn(directoryPath);
+        } catch (IOException e) {
             String errorMessage = "Failed to index directory: " + e.getMessage();
             logView.appendLog(logAppender.error(errorMessage));
             Platform.runLater(() -> showAlert(Alert.AlertType.ERROR, errorMessage));
+            return;
+        }
+        if (liveSync != null && directoryPath.equals(currentDirectory)) {
+            // The synced indexer holds the write lock, so re-index through it
+            runIndexJob(progress -> indexService.indexDirectory(indexer, directoryPath, fileType, progress),
+                    directoryPath, summary -> {
+                        refreshSearcher();
+                        showIndexingComplete(directoryPath, summary);
+                    });
+            return;
+        }
+        runIndexJob(progress -> indexService.indexDirectory(directoryPath, profile, shardCount, fileType, progress),
+                directoryPath, summary -> {
+                    // Reopened from the pool only now that the run has committed.
+                    // Add to indexed directories if not already there
+                    if (!indexedDirectoriesComboBox.getItems().contains(directoryPath)) {
+                        indexedDirectoriesComboBox.getItems().add(directoryPath);
+                        saveIndexedDirectories();
+                    }
+                    indexedDirectoriesComboBox.getSelectionModel().select(directoryPath);
+                    switchToSelectedDirectory();
+                    showIndexingComplete(directoryPath, summary);
+                });
+    }
+
+    /**
+     * Before re-indexing a directory, gives back any searcher this view holds on it and drops the pooled
+     * one, since a rebuild with a different profile or shard count clears or deletes the index files
+     * those readers have open. Live sync re-indexes through its own writer and keeps its searcher.
+     */
+    private void releaseSearchersOn(String directoryPath) throws IOException {
+        boolean holdsDirectory = liveSync == null
+                && (directoryPath.equals(currentDirectory) || allDirectoriesCheckBox.isSelected());
+        if (holdsDirectory) {
+            initializeInMemoryComponents();
+        }
+        searcherPool.invalidate(directoryPath);
+    }
+
+    /**
+     * Starts an indexing job, showing its progress and locking the controls that would close or
+     * reopen the index under it until it ends. {@code onSuccess} runs on the FX thread.
+     */
+    private void runIndexJob(Function<IndexingListener, IndexJob> start, String directoryPath,
+                             Consumer<IndexingSummary> onSuccess) {
+        LatestValuePublisher<IndexingProgress> publisher = new LatestValuePublisher<>(Platform::runLater,
+                this::showIndexingProgress);
+        IndexJob job = start.apply((processed, discovered) ->
+                publisher.publish(new IndexingProgress(processed, discovered)));
+        indexJob = job;
+        setIndexingControlsDisabled(true);
+        indexProgressBar.setProgress(ProgressBar.INDETERMINATE_PROGRESS);
+        indexProgressLabel.setText("Indexing " + directoryPath + "...");
+        logView.appendLog(logAppender.info("Indexing started for directory: " + directoryPath));
+        job.getFuture().whenComplete((summary, error) -> Platform.runLater(() -> {
+            indexJob = null;
+            setIndexingControlsDisabled(false);
+            if (error != null) {
+                String errorMessage = "Failed to index directory: " + error.getMessage();
+                logView.appendLog(logAppender.error(errorMessage));
+                showAlert(Alert.AlertType.ERROR, errorMessage);
+                return;
+            }
+            onSuccess.accept(summary);
+        }));
+    }
+
+    private void showIndexingProgress(IndexingProgress progress) {
+        if (indexJob == null) {
+            return;
+        }
+        long discovered = progress.discovered();
+        indexProgressBar.setProgress(discovered == 0 ? 0 : (double) progress.processed() / discovered);
+        indexProgressLabel.setText(progress.processed() + " / " + progress.discovered() + " files");
+    }
+
+    private void showIndexingComplete(String directoryPath, IndexingSummary summary) {
+        String message = summary.isCancelled() ? "Indexing cancelled." : "Indexing complete!";
+        Platform.runLater(() -> showAlert(Alert.AlertType.INFORMATION, message));
+        logView.appendLog(logAppender.info(message + " Directory: " + directoryPath + " (" + summary + ")"));
+    }
+
+    private void cancelIndexing() {
+        if (indexJob != null) {
+            indexJob.cancel();
+            cancelIndexBtn.setDisable(true);
+            logView.appendLog(logAppender.info("Cancelling indexing..."));
+        }
+    }
+
+    private void setIndexingControlsDisabled(boolean indexing) {
+        indexProgressBox.setVisible(indexing);
+        indexProgressBox.setManaged(indexing);
+        cancelIndexBtn.setDisable(!indexing);
+        indexBtn.setDisable(indexing);
+        indexedDirectoriesComboBox.setDisable(indexing);
+        resetPrefsBtn.setDisable(indexing);
+        allDirectoriesCheckBox.setDisable(indexing);
+        liveSyncCheckBox.setDisable(indexing || currentDirectory == null);
+    }
+
+    private void refreshSearcher() {
+        try {
+            searcher.refresh();
+        } catch (IOException e) {
+            logView.appendLog(logAppender.error("Failed to refresh searcher: " + e.getMessage()));
         }
     }
 
     public void clearResults() {
+        searchService.cancel();
+        pendingSearch = null;
+        currentPage = null;
         resultsView.getItems().clear();
     }
 
@@ -272,18 +554,186 @@ public class SearchView extends BaseView {
         }
     }
 
-    public void close() {
-        try {
-            if (indexer != null) {
-                indexer.close();
+    private void toggleLiveSync() {
+        if (!liveSyncCheckBox.isSelected()) {
+            try {
+                closeComponents();
+                searcher = searcherPool.acquire(currentDirectory);
+                searcherPooled = true;
+                logView.appendLog(logAppender.info("Live sync stopped for directory: " + currentDirectory));
+            } catch (Exception e) {
+                logView.appendLog(logAppender.error("Failed to stop live sync: " + e.getMessage()));
+                initializeInMemoryComponents();
             }
-            if (searcher != null) {
+            return;
+        }
+        if (usingInMemoryIndex || currentDirectory == null) {
+            liveSyncCheckBox.setSelected(false);
+            logView.appendLog(logAppender.warning("Choose an indexed directory before enabling live sync."));
+            return;
+        }
+        if (IndexSettings.load(currentDirectory).isSharded()) {
+            liveSyncCheckBox.setSelected(false);
+            logView.appendLog(logAppender.warning("Live sync is not supported for sharded indexes."));
+            return;
+        }
+        String directoryPath = currentDirectory;
+        String fileType = fileTypeComboBox.getSelectionModel().getSelectedItem();
+        setLiveSyncBusy(true);
+        logView.appendLog(logAppender.info("Starting live sync for directory: " + directoryPath));
+        // The current searcher keeps serving queries until the sync is ready. A sync stopped just
+        // before must release the index first.
+        CompletableFuture<LiveSync> starting = liveSyncStopped.exceptionally(error -> null)
+                .thenCompose(ignored -> indexService.startLiveSync(directoryPath, fileType, this::onChangesSynced,
+                        Platform::runLater));
+        liveSyncStarting = starting;
+        starting.whenComplete((sync, error) -> Platform.runLater(() -> {
+            if (liveSyncStarting != starting) {
+                // The view was closed meanwhile and stopped the sync itself
+                return;
+            }
+            liveSyncStarting = null;
+            setLiveSyncBusy(false);
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error;
+                String errorMessage = "Failed to start live sync: " + cause.getMessage();
+                logView.appendLog(logAppender.error(errorMessage));
+                showAlert(Alert.AlertType.ERROR, errorMessage);
+                liveSyncCheckBox.setSelected(false);
+                return;
+            }
+            adoptLiveSync(sync, directoryPath, fileType);
+        }));
+    }
+
+    /**
+     * Switches searching over to a started live sync and catches up on changes made while nothing was
+     * watching; unchanged files are skipped. The watcher is already running, so nothing changed during
+     * the catch-up is missed.
+     */
+    private void adoptLiveSync(LiveSync sync, String directoryPath, String fileType) {
+        try {
+            closeComponents();
+        } catch (IOException e) {
+            logView.appendLog(logAppender.warning("Failed to release searcher: " + e.getMessage()));
+        }
+        liveSync = sync;
+        indexer = sync.getIndexer();
+        searcher = sync.getSearcher();
+        searcherPooled = false;
+        liveSyncCheckBox.setSelected(true);
+        runIndexJob(progress -> indexService.indexDirectory(sync.getIndexer(), directoryPath, fileType, progress),
+                directoryPath, summary -> {
+                    refreshSearcher();
+                    logView.appendLog(logAppender.info("Live sync started for directory: " + directoryPath
+                            + " (" + summary + ")"));
+                });
+    }
+
+    private void onChangesSynced(List<WatchResult> batch) {
+        logView.appendLog(logAppender.info("Live sync applied " + batch.size() + " file changes"));
+    }
+
+    /**
+     * Stops live sync, if running, in the background. The sync commits whatever it has applied and
+     * closes its searcher and indexer; until then the controls that would reopen the index are locked.
+     */
+    private void stopLiveSync() {
+        LiveSync sync = liveSync;
+        if (sync != null) {
+            liveSync = null;
+            // Owned by the sync, which closes them once it has committed
+            searcher = null;
+            indexer = null;
+            setLiveSyncBusy(true);
+            CompletableFuture<Void> stopped = indexService.stopLiveSync(sync);
+            liveSyncStopped = stopped;
+            stopped.whenComplete((ignored, error) -> Platform.runLater(() -> {
+                setLiveSyncBusy(false);
+                if (error != null) {
+                    logView.appendLog(logAppender.error("Failed to stop live sync: " + error.getMessage()));
+                }
+            }));
+        }
+        liveSyncCheckBox.setSelected(false);
+    }
+
+    /**
+     * Locks the controls that would open or replace the directory's index while a live sync starts or stops.
+     */
+    private void setLiveSyncBusy(boolean busy) {
+        boolean locked = busy || indexJob != null;
+        indexBtn.setDisable(locked);
+        indexedDirectoriesComboBox.setDisable(locked);
+        resetPrefsBtn.setDisable(locked);
+        allDirectoriesCheckBox.setDisable(locked);
+        liveSyncCheckBox.setDisable(locked || currentDirectory == null);
+    }
+
+    /**
+     * Stops live sync and closes the active searcher and indexer. The searcher goes first since
+     * it may share the indexer's writer.
+     */
+    private void closeComponents() throws IOException {
+        stopLiveSync();
+        searchService.cancel();
+        pendingSearch = null;
+        currentPage = null;
+        if (searcher != null) {
+            if (searcherPooled) {
+                searcherPool.release(searcher);
+            } else {
                 searcher.close();
             }
+            searcher = null;
+            searcherPooled = false;
+        }
+        if (indexer != null) {
+            indexer.close();
+            indexer = null;
+        }
+    }
+
+    public void close() {
+        IndexJob job = indexJob;
+        if (job != null) {
+            // Let the run commit what it has and release the index before the app exits
+            job.cancel();
+            try {
+                job.getFuture().get(INDEX_CANCEL_TIMEOUT_SEC, TimeUnit.SECONDS);
+            } catch (Exception e) {
+                logView.appendLog(logAppender.warning("Indexing did not stop cleanly: " + e.getMessage()));
+            }
+        }
+        searchService.close();
+        try {
+            startupSnapshot.save(List.copyOf(indexedDirectoriesComboBox.getItems()));
+        } catch (IOException e) {
+            logView.appendLog(logAppender.warning("Failed to save startup snapshot: " + e.getMessage()));
+        }
+        CompletableFuture<LiveSync> starting = liveSyncStarting;
+        liveSyncStarting = null;
+        try {
+            if (starting != null) {
+                indexService.stopLiveSync(starting.get(INDEX_CANCEL_TIMEOUT_SEC, TimeUnit.SECONDS))
+                        .get(INDEX_CANCEL_TIMEOUT_SEC, TimeUnit.SECONDS);
+            }
+        } catch (Exception e) {
+            logView.appendLog(logAppender.warning("Live sync did not stop cleanly: " + e.getMessage()));
+        }
+        try {
+            closeComponents();
+            // Let the index be committed and released before the app exits
+            liveSyncStopped.get(INDEX_CANCEL_TIMEOUT_SEC, TimeUnit.SECONDS);
+            searcherPool.close();
         } catch (Exception e) {
             String errorMessage = "Failed to close resources: " + e.getMessage();
             logView.appendLog(logAppender.error(errorMessage));
         }
+        indexService.close();
     }
-}
 
+    private record IndexingProgress(long processed, long discovered) {
+    }
+}
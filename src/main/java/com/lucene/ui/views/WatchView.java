@@ -14,6 +14,9 @@ import javafx.stage.Stage;
 import java.io.File;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.logging.Logger;
 
 public class WatchView extends BaseView {
@@ -121,8 +124,11 @@ public class WatchView extends BaseView {
         results.getItems().clear();
     }
 
-    public void displayChangeResults(WatchResult result) {
-        logger.info("Change event: " + result.printChangeEvent());
-        results.getItems().add(0, result); //TODO: use deque for optimization
+    public void displayChangeResults(List<WatchResult> batch) {
+        logger.fine("Change events: " + batch.size());
+        // Newest first, inserted with a single list change per batch
+        List<WatchResult> newestFirst = new ArrayList<>(batch);
+        Collections.reverse(newestFirst);
+        results.getItems().addAll(0, newestFirst);
     }
 }
@@ -5,7 +5,10 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.security.MessageDigest;
+import java.util.ArrayList;
 import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
 
 public class FileUtil {
     /**
@@ -28,7 +31,72 @@ public class FileUtil {
         }
     }
 
+    /**
+     * Settings file for a source directory, stored next to its index as "[encoded-directory-name].properties".
+     */
+    public static Path getSettingsPath(String sourceDirectory) {
+        Path indexPath = getIndexPath(sourceDirectory);
+        return indexPath.resolveSibling(indexPath.getFileName() + ".properties");
+    }
+
+    /**
+     * Directory holding the shards of a sharded index: "LucidSearch/data/[encoded-directory-name]-shards",
+     * next to where the unsharded index would be.
+     */
+    public static Path getShardsPath(String sourceDirectory) {
+        Path indexPath = getIndexPath(sourceDirectory);
+        return indexPath.resolveSibling(indexPath.getFileName() + "-shards");
+    }
+
+    /**
+     * Path of one shard of a sharded index: "LucidSearch/data/[encoded-directory-name]-shards/shard-[n]".
+     */
+    public static Path getShardIndexPath(String sourceDirectory, int shard) {
+        return getShardsPath(sourceDirectory).resolve("shard-" + shard);
+    }
+
+    /**
+     * Paths of the Lucene index of a source directory: the index itself, or each of its {@code shardCount} shards.
+     */
+    public static List<Path> getIndexPaths(String sourceDirectory, int shardCount) {
+        if (shardCount <= 1) {
+            return List.of(getIndexPath(sourceDirectory));
+        }
+        List<Path> paths = new ArrayList<>(shardCount);
+        for (int shard = 0; shard < shardCount; shard++) {
+            paths.add(getShardIndexPath(sourceDirectory, shard));
+        }
+        return paths;
+    }
+
+    /**
+     * State saved at exit to speed up the next launch: "LucidSearch/data/startup-snapshot.properties".
+     */
+    public static Path getStartupSnapshotPath() {
+        return Paths.get(System.getProperty("user.dir"), "data", "startup-snapshot.properties");
+    }
+
     public static boolean isValidDirectory(String path) {
         return path != null && Files.isDirectory(Paths.get(path));
     }
+
+    /**
+     * Lower-case extension of a file name without the dot, or an empty string if it has none.
+     */
+    public static String extensionOf(Path file) {
+        String fileName = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        int idx = fileName.lastIndexOf(".");
+        return idx > 0 ? fileName.substring(idx + 1) : "";
+    }
+
+    /**
+     * Whether a file has a supported extension and, unless {@code fileType} is "all", that extension.
+     */
+    public static boolean matchesFileType(Path file, String fileType) {
+        String extension = extensionOf(file);
+        if (!Constants.FILE_TYPES_SET.contains(extension)) {
+            return false;
+        }
+        return fileType.equals("all") || extension.equals(fileType);
+    }
 }
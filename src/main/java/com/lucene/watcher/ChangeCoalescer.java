@@ -0,0 +1,158 @@
+package com.lucene.watcher;
+
+import com.lucene.model.WatchResult;
+import com.lucene.util.logging.CustomLogger;
+
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+/**
+ * Collapses bursts of file events into one net change per path and hands them on in batches.
+ * A path is emitted once it has been quiet for the quiet period, or once its first pending event
+ * is older than the max delay so a constantly written file still gets reported.
+ * <p>
+ * Per path, CREATE followed by MODIFY stays CREATE, CREATE followed by DELETE cancels out,
+ * DELETE followed by CREATE becomes MODIFY and anything followed by DELETE becomes DELETE.
+ */
+public class ChangeCoalescer implements AutoCloseable {
+
+    public static final Duration DEFAULT_QUIET_PERIOD = Duration.ofMillis(200);
+    private static final Logger logger = CustomLogger.getLogger(ChangeCoalescer.class.getName());
+    private static final int MAX_DELAY_FACTOR = 10;
+    private static final long CLOSE_TIMEOUT_SEC = 30;
+
+    private final long quietPeriodNanos;
+    private final long maxDelayNanos;
+    private final Consumer<List<WatchResult>> batchConsumer;
+    private final Map<Path, PendingChange> pending = new LinkedHashMap<>();
+    private final ScheduledExecutorService flusher;
+
+    public ChangeCoalescer(Duration quietPeriod, Consumer<List<WatchResult>> batchConsumer) {
+        this.quietPeriodNanos = quietPeriod.toNanos();
+        this.maxDelayNanos = quietPeriod.toNanos() * MAX_DELAY_FACTOR;
+        this.batchConsumer = batchConsumer;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ChangeCoalescerThread");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long tickMillis = Math.max(10, quietPeriod.toMillis() / 2);
+        flusher.scheduleWithFixedDelay(() -> flush(false), tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Records an event for a path, merging it with any change still pending for that path.
+     */
+    public void add(WatchEvent.Kind<?> kind, Path path) {
+        long now = System.nanoTime();
+        synchronized (pending) {
+            PendingChange change = pending.get(path);
+            if (change == null) {
+                pending.put(path, new PendingChange(kind, now));
+                return;
+            }
+            WatchEvent.Kind<?> merged = merge(change.kind, kind);
+            if (merged == null) {
+                pending.remove(path);
+            } else {
+                change.kind = merged;
+                change.lastSeenNanos = now;
+            }
+        }
+    }
+
+    public int pendingCount() {
+        synchronized (pending) {
+            return pending.size();
+        }
+    }
+
+    /**
+     * Emits every settled change, or every pending change when {@code force} is set.
+     */
+    public void flush(boolean force) {
+        List<WatchResult> batch = new ArrayList<>();
+        long now = System.nanoTime();
+        synchronized (pending) {
+            Iterator<Map.Entry<Path, PendingChange>> it = pending.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<Path, PendingChange> entry = it.next();
+                PendingChange change = entry.getValue();
+                if (force || now - change.lastSeenNanos >= quietPeriodNanos || now - change.firstSeenNanos >= maxDelayNanos) {
+                    batch.add(toResult(entry.getKey(), change.kind));
+                    it.remove();
+                }
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            batchConsumer.accept(batch);
+        } catch (Exception e) {
+            logger.severe("Error delivering change batch: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Stops the flusher and emits whatever is still pending. A flush already in progress is
+     * allowed to finish rather than interrupted, since consumers may be writing to an index.
+     */
+    @Override
+    public void close() {
+        flusher.shutdown();
+        try {
+            if (!flusher.awaitTermination(CLOSE_TIMEOUT_SEC, TimeUnit.SECONDS)) {
+                logger.warning("Change batch still being delivered after " + CLOSE_TIMEOUT_SEC + "s");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush(true);
+    }
+
+    static WatchEvent.Kind<?> merge(WatchEvent.Kind<?> previous, WatchEvent.Kind<?> next) {
+        if (next == StandardWatchEventKinds.ENTRY_DELETE) {
+            return previous == StandardWatchEventKinds.ENTRY_CREATE ? null : next;
+        }
+        if (previous == StandardWatchEventKinds.ENTRY_CREATE) {
+            return previous;
+        }
+        // Modified again, or deleted and recreated: either way the file now has new content
+        return StandardWatchEventKinds.ENTRY_MODIFY;
+    }
+
+    private static WatchResult toResult(Path path, WatchEvent.Kind<?> kind) {
+        return new WatchResult.Builder()
+                .fileName(path.getFileName().toString().toLowerCase(Locale.ROOT))
+                .filePath(path.toAbsolutePath().toString())
+                .eventType(kind.name())
+                .build();
+    }
+
+    private static class PendingChange {
+
+        private final long firstSeenNanos;
+        private WatchEvent.Kind<?> kind;
+        private long lastSeenNanos;
+
+        PendingChange(WatchEvent.Kind<?> kind, long now) {
+            this.kind = kind;
+            this.firstSeenNanos = now;
+            this.lastSeenNanos = now;
+        }
+    }
+}
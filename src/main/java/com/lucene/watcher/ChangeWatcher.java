@@ -1,24 +1,83 @@
 package com.lucene.watcher;
 
 import com.lucene.model.WatchResult;
-import com.lucene.util.Constants;
+import com.lucene.util.FileUtil;
 import javafx.application.Platform;
 
 import java.io.IOException;
 import java.nio.file.*;
+import java.time.Duration;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
+import java.util.stream.Stream;
 
-public class ChangeWatcher extends Watcher<WatchResult> {
+/**
+ * Recursively watches a directory tree. Events are coalesced per path over a quiet period and
+ * delivered to the output function in batches, by default on the JavaFX application thread.
+ * <p>
+ * If the OS event queue overflows, the directories whose keys overflowed are rescanned on a
+ * small bounded pool and compared against the last known file states, so the lost creates,
+ * modifications and deletes are still reported.
+ */
+public class ChangeWatcher extends Watcher<List<WatchResult>> {
 
-    private final Map<WatchKey, Path> watchKeyToPathMap = new HashMap<>();
+    private static final int RESCAN_THREADS = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+    private static final int RESCAN_QUEUE_CAPACITY = 256;
+
+    private final String fileType;
+    private final Map<WatchKey, Path> watchKeyToPathMap = new ConcurrentHashMap<>();
     private final WatchService watchService;
+    private final ChangeCoalescer coalescer;
+    private final Executor deliveryExecutor;
+    private final FileStateSnapshot snapshot = new FileStateSnapshot();
+    private final Set<Path> pendingRescans = ConcurrentHashMap.newKeySet();
+    private final ThreadPoolExecutor rescanExecutor;
+
+    public ChangeWatcher(String dirPath, Consumer<List<WatchResult>> outputFunc) throws IOException {
+        this(dirPath, outputFunc, ChangeCoalescer.DEFAULT_QUIET_PERIOD);
+    }
+
+    public ChangeWatcher(String dirPath, Consumer<List<WatchResult>> outputFunc, Duration quietPeriod) throws IOException {
+        this(dirPath, outputFunc, quietPeriod, Platform::runLater);
+    }
+
+    public ChangeWatcher(String dirPath, Consumer<List<WatchResult>> outputFunc, Duration quietPeriod,
+                         Executor deliveryExecutor) throws IOException {
+        this(dirPath, "all", outputFunc, quietPeriod, deliveryExecutor);
+    }
 
-    public ChangeWatcher(String dirPath, Consumer<WatchResult> outputFunc) throws IOException {
+    /**
+     * @param fileType         "all" or the one extension whose creates and modifications are reported
+     * @param deliveryExecutor runs the output function for each batch; {@code Runnable::run}
+     *                         delivers on the coalescer thread
+     */
+    public ChangeWatcher(String dirPath, String fileType, Consumer<List<WatchResult>> outputFunc,
+                         Duration quietPeriod, Executor deliveryExecutor) throws IOException {
         super(dirPath, outputFunc);
+        this.fileType = fileType;
+        this.deliveryExecutor = deliveryExecutor;
         this.watchService = FileSystems.getDefault().newWatchService();
-        registerDirectory(dir);
+        this.coalescer = new ChangeCoalescer(quietPeriod, this::deliverBatch);
+        AtomicInteger threadCount = new AtomicInteger();
+        // When the queue is full the watcher thread rescans itself, which also slows event intake
+        this.rescanExecutor = new ThreadPoolExecutor(RESCAN_THREADS, RESCAN_THREADS, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(RESCAN_QUEUE_CAPACITY), runnable -> {
+            Thread thread = new Thread(runnable, "WatchRescan-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.CallerRunsPolicy());
+        registerDirectory(dir, false);
     }
 
     @Override
@@ -28,6 +87,9 @@ public class ChangeWatcher extends Watcher<WatchResult> {
                 WatchKey key;
                 try {
                     key = watchService.take(); // Blocking call
+                } catch (ClosedWatchServiceException e) {
+                    // stop() closed the service
+                    break;
                 } catch (InterruptedException e) {
                     logger.warning("Watch service interrupted: " + e.getMessage());
                     Thread.currentThread().interrupt();
@@ -44,17 +106,19 @@ public class ChangeWatcher extends Watcher<WatchResult> {
                     WatchEvent.Kind<?> kind = event.kind();
 
                     if (kind == StandardWatchEventKinds.OVERFLOW) {
-                        logger.warning("Event overflow occurred");
+                        logger.warning("Event overflow occurred, rescanning " + dir);
+                        scheduleRescan(dir);
                         continue;
                     }
                     Path name = ((WatchEvent<Path>) event).context();
                     Path changedPath = dir.resolve(name);
-                    logger.info("Event detected: " + kind.name() + " - " + changedPath);
+                    logger.fine("Event detected: " + kind.name() + " - " + changedPath);
 
                     if (kind == StandardWatchEventKinds.ENTRY_CREATE) {
                         try {
                             if (Files.isDirectory(changedPath)) {
-                                registerDirectory(changedPath);
+                                // Files moved in with the directory produce no events of their own
+                                registerDirectory(changedPath, true);
                             }
                         } catch (IOException e) {
                             logger.warning("Failed to register new directory: " + e.getMessage());
@@ -81,11 +145,13 @@ public class ChangeWatcher extends Watcher<WatchResult> {
             } catch (IOException e) {
                 logger.warning("Failed to close watch service: " + e.getMessage());
             }
+            rescanExecutor.shutdownNow();
+            coalescer.close();
             running = false;
         }
     }
 
-    private void registerDirectory(Path directory) throws IOException {
+    private void registerDirectory(Path directory, boolean reportFiles) throws IOException {
         if (!Files.isDirectory(directory)) {
             return;
         }
@@ -96,15 +162,107 @@ public class ChangeWatcher extends Watcher<WatchResult> {
 
         watchKeyToPathMap.put(key, directory);
         logger.info("Watching directory: " + directory.toAbsolutePath());
-        Files.list(directory)
-                .filter(Files::isDirectory)
-                .forEach(subdir -> {
+        Map<Path, FileStateSnapshot.FileState> files = new HashMap<>();
+        try (Stream<Path> children = Files.list(directory)) {
+            children.forEach(child -> {
+                if (Files.isDirectory(child)) {
+                    try {
+                        registerDirectory(child, reportFiles);
+                    } catch (IOException e) {
+                        logger.warning("Failed to register subdirectory: " + child + " - " + e.getMessage());
+                    }
+                } else if (isWatchedFile(child)) {
                     try {
-                        registerDirectory(subdir);
+                        files.put(child, FileStateSnapshot.FileState.of(child));
                     } catch (IOException e) {
-                        logger.warning("Failed to register subdirectory: " + subdir + " - " + e.getMessage());
+                        logger.fine("Skipping unreadable file: " + child);
                     }
-                });
+                }
+            });
+        }
+        snapshot.recordDirectory(directory, files);
+        if (reportFiles) {
+            files.keySet().forEach(file -> coalescer.add(StandardWatchEventKinds.ENTRY_CREATE, file));
+        }
+    }
+
+    /**
+     * Queues a rescan of a directory unless one is already waiting.
+     */
+    private void scheduleRescan(Path directory) {
+        if (!pendingRescans.add(directory)) {
+            return;
+        }
+        try {
+            rescanExecutor.execute(() -> {
+                // Cleared before scanning so an overflow during the scan queues another one
+                pendingRescans.remove(directory);
+                try {
+                    rescan(directory);
+                } catch (Exception e) {
+                    logger.warning("Failed to rescan " + directory + ": " + e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pendingRescans.remove(directory);
+        }
+    }
+
+    /**
+     * Compares a directory with its last known state and reports the differences as events.
+     * Only the directory itself is listed; new subdirectories are registered and reported in full.
+     */
+    private void rescan(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            if (snapshot.isKnownDirectory(directory)) {
+                notifyChange(directory, StandardWatchEventKinds.ENTRY_DELETE);
+            }
+            return;
+        }
+        Map<Path, FileStateSnapshot.FileState> known = snapshot.files(directory);
+        Set<Path> seen = new HashSet<>();
+        int reported = 0;
+        try (Stream<Path> children = Files.list(directory)) {
+            for (Path child : (Iterable<Path>) children::iterator) {
+                if (Files.isDirectory(child)) {
+                    if (!snapshot.isKnownDirectory(child)) {
+                        registerDirectory(child, true);
+                    }
+                    continue;
+                }
+                if (!isWatchedFile(child)) {
+                    continue;
+                }
+                seen.add(child);
+                FileStateSnapshot.FileState previous = known.get(child);
+                FileStateSnapshot.FileState current;
+                try {
+                    current = FileStateSnapshot.FileState.of(child);
+                } catch (IOException e) {
+                    continue; // Deleted while scanning; its own event reports it
+                }
+                if (previous == null) {
+                    notifyChange(child, StandardWatchEventKinds.ENTRY_CREATE);
+                    reported++;
+                } else if (!previous.equals(current)) {
+                    notifyChange(child, StandardWatchEventKinds.ENTRY_MODIFY);
+                    reported++;
+                }
+            }
+        }
+        for (Path file : known.keySet()) {
+            if (!seen.contains(file)) {
+                notifyChange(file, StandardWatchEventKinds.ENTRY_DELETE);
+                reported++;
+            }
+        }
+        for (Path subdirectory : snapshot.knownDirectories()) {
+            if (directory.equals(subdirectory.getParent()) && !Files.isDirectory(subdirectory)) {
+                notifyChange(subdirectory, StandardWatchEventKinds.ENTRY_DELETE);
+                reported++;
+            }
+        }
+        logger.info("Rescan of " + directory + " recovered " + reported + " changes");
     }
 
     @Override
@@ -115,14 +273,14 @@ public class ChangeWatcher extends Watcher<WatchResult> {
         } catch (IOException e) {
             logger.warning("Failed to close watch service: " + e.getMessage());
         }
+        rescanExecutor.shutdownNow();
+        coalescer.close();
     }
 
     private void processEvent(WatchEvent.Kind<?> kind, Path changedPath) {
-        String fileName = changedPath.getFileName().toString().toLowerCase();
-
         if (kind == StandardWatchEventKinds.ENTRY_DELETE) {
             if (!Files.isDirectory(changedPath)) {
-                notifyChange(fileName, changedPath, kind.name());
+                notifyChange(changedPath, kind);
             }
             return;
         }
@@ -130,35 +288,29 @@ public class ChangeWatcher extends Watcher<WatchResult> {
             return;
         }
         if (kind == StandardWatchEventKinds.ENTRY_CREATE || kind == StandardWatchEventKinds.ENTRY_MODIFY) {
-            if (!isValidFileType(fileName)) {
-                logger.warning("Unsupported file type: " + fileName);
+            if (!isWatchedFile(changedPath)) {
+                logger.fine("Not watched: " + changedPath.getFileName());
                 return;
             }
-            notifyChange(fileName, changedPath, kind.name());
+            notifyChange(changedPath, kind);
         }
     }
 
-    private boolean isValidFileType(String fileName) {
-        int idx = fileName.lastIndexOf(".");
-        if (idx <= 0) {
-            return false;
-        }
-        String fileExt = fileName.substring(idx + 1);
-        return Constants.FILE_TYPES_SET.contains(fileExt);
+    private boolean isWatchedFile(Path file) {
+        return FileUtil.matchesFileType(file, fileType);
     }
 
-    private void notifyChange(String fileName, Path changedPath, String eventType) {
-        try {
-            WatchResult result = new WatchResult.Builder()
-                    .fileName(fileName)
-                    .filePath(changedPath.toAbsolutePath().toString())
-                    .eventType(eventType)
-                    .build();
-
-            logger.info("File change detected: " + result.printChangeEvent());
-            Platform.runLater(() -> outputFunc.accept(result));
-        } catch (Exception e) {
-            logger.severe("Error creating change notification: " + e.getMessage());
+    private void notifyChange(Path changedPath, WatchEvent.Kind<?> kind) {
+        if (kind == StandardWatchEventKinds.ENTRY_DELETE) {
+            snapshot.remove(changedPath);
+        } else {
+            snapshot.update(changedPath);
         }
+        coalescer.add(kind, changedPath);
+    }
+
+    private void deliverBatch(List<WatchResult> batch) {
+        logger.info("Delivering " + batch.size() + " coalesced file changes");
+        deliveryExecutor.execute(() -> outputFunc.accept(batch));
     }
 }
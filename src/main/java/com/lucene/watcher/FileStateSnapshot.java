@@ -0,0 +1,102 @@
+package com.lucene.watcher;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Last known size and modification time of the files in each watched directory. Kept current
+ * from the events the watcher sees, so that after an overflow a rescan can tell which creates,
+ * modifications and deletes were lost.
+ */
+class FileStateSnapshot {
+
+    private final Map<Path, Map<Path, FileState>> directories = new ConcurrentHashMap<>();
+
+    /**
+     * Replaces what is known about a directory with the given listing of its files.
+     */
+    void recordDirectory(Path directory, Map<Path, FileState> files) {
+        Map<Path, FileState> state = new ConcurrentHashMap<>(files);
+        directories.put(directory, state);
+    }
+
+    boolean isKnownDirectory(Path directory) {
+        return directories.containsKey(directory);
+    }
+
+    Set<Path> knownDirectories() {
+        return Collections.unmodifiableSet(directories.keySet());
+    }
+
+    Map<Path, FileState> files(Path directory) {
+        Map<Path, FileState> files = directories.get(directory);
+        return files == null ? Map.of() : Collections.unmodifiableMap(files);
+    }
+
+    /**
+     * Records the current state of a file, or forgets it if it can no longer be read.
+     */
+    void update(Path file) {
+        Map<Path, FileState> files = directories.get(file.getParent());
+        if (files == null) {
+            return;
+        }
+        try {
+            files.put(file, FileState.of(file));
+        } catch (IOException e) {
+            files.remove(file);
+        }
+    }
+
+    /**
+     * Forgets a file, or a directory together with everything below it.
+     */
+    void remove(Path path) {
+        Map<Path, FileState> files = directories.get(path.getParent());
+        if (files != null) {
+            files.remove(path);
+        }
+        if (directories.containsKey(path)) {
+            directories.keySet().removeIf(dir -> dir.startsWith(path));
+        }
+    }
+
+    static final class FileState {
+
+        private final long size;
+        private final long modifiedMillis;
+
+        FileState(long size, long modifiedMillis) {
+            this.size = size;
+            this.modifiedMillis = modifiedMillis;
+        }
+
+        static FileState of(Path file) throws IOException {
+            BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+            return new FileState(attrs.size(), attrs.lastModifiedTime().toMillis());
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof FileState)) {
+                return false;
+            }
+            FileState other = (FileState) o;
+            return size == other.size && modifiedMillis == other.modifiedMillis;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(size) * 31 + Long.hashCode(modifiedMillis);
+        }
+    }
+}
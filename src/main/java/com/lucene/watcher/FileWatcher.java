@@ -3,54 +3,118 @@ package com.lucene.watcher;
 import com.lucene.indexer.Indexer;
 import com.lucene.model.WatchResult;
 import com.lucene.searcher.Searcher;
-import org.apache.lucene.store.ByteBuffersDirectory;
+import javafx.application.Platform;
 
 import java.io.IOException;
-import java.nio.file.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Executor;
 import java.util.function.Consumer;
 
+/**
+ * Keeps the persistent index of a directory in sync with the file system. Coalesced batches
+ * from a {@link ChangeWatcher} are applied to the {@link Indexer} as adds, updates and deletes,
+ * commits are left to the indexer's commit policy, and the searcher is refreshed after every
+ * batch so changes are searchable near-real-time. Applied batches are passed to the output
+ * function on the JavaFX application thread unless another executor is given.
+ */
 public class FileWatcher extends Watcher<List<WatchResult>> {
-    Searcher searcher;
-    Indexer indexer;
-    String searchWord;
-    ByteBuffersDirectory index = new ByteBuffersDirectory();
 
-    public FileWatcher(String dirPath, String searchWord, Consumer<List<WatchResult>> outputFunc) throws IOException {
+    private final Indexer indexer;
+    private final Searcher searcher;
+    private final ChangeWatcher changeWatcher;
+    private final Executor outputExecutor;
+    private final Object applyLock = new Object();
+    private boolean closed;
+
+    public FileWatcher(String dirPath, String fileType, Indexer indexer, Searcher searcher,
+                       Consumer<List<WatchResult>> outputFunc) throws IOException {
+        this(dirPath, fileType, indexer, searcher, outputFunc, Platform::runLater);
+    }
+
+    /**
+     * @param fileType       "all" or the one extension the index holds; other files are not synced
+     * @param outputExecutor runs the output function for each applied batch; {@code Runnable::run}
+     *                       delivers on the coalescer thread, e.g. when there is no JavaFX toolkit
+     */
+    public FileWatcher(String dirPath, String fileType, Indexer indexer, Searcher searcher,
+                       Consumer<List<WatchResult>> outputFunc, Executor outputExecutor) throws IOException {
         super(dirPath, outputFunc);
-        this.indexer = new Indexer(index);
-        this.searcher = new Searcher(dirPath);
-        this.searchWord = searchWord;
+        this.indexer = indexer;
+        this.outputExecutor = outputExecutor;
+        this.searcher = searcher;
+        // Batches are applied on the coalescer thread so indexing never runs on the UI thread
+        this.changeWatcher = new ChangeWatcher(dirPath, fileType, this::applyChanges,
+                ChangeCoalescer.DEFAULT_QUIET_PERIOD, Runnable::run);
     }
 
     @Override
     public void run() {
-        try (WatchService watcher = FileSystems.getDefault().newWatchService()) {
-            dir.register(watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
-            logger.info("Watching directory: " + dir.toAbsolutePath());
-            WatchKey key;
-            while ((key = watcher.take()) != null) {
-                for (WatchEvent<?> event : key.pollEvents()) {
-                    WatchEvent.Kind<?> kind = event.kind();
-                    Path changed = dir.resolve((Path) event.context());
-                    logger.info("Event detected: " + kind.name() + " - " + changed);
-                    String fileName = changed.getFileName().toString().toLowerCase();
-                    int idx = fileName.lastIndexOf(".");
-                    String fileExt = (idx > 0) ? fileName.substring(idx + 1) : "INVALID";
-                    if ((kind == StandardWatchEventKinds.ENTRY_CREATE || kind == StandardWatchEventKinds.ENTRY_MODIFY)) {
-                        indexer.indexFile(changed);
-                        try {
-                            List<WatchResult> res = searcher.search(searchWord, 100);
-                            outputFunc.accept(res);
-                        } catch (Exception e) {
-                            logger.severe("Error during search: " + e.getMessage());
-                        }
-                    }
+        logger.info("Syncing index with directory: " + dir.toAbsolutePath());
+        changeWatcher.run();
+        running = false;
+    }
+
+    /**
+     * Stops watching, applies the changes still pending and commits them. Batches flushed after this
+     * returns, e.g. by the watcher thread still winding down, are dropped so the indexer can be closed.
+     */
+    @Override
+    public void stop() {
+        super.stop();
+        changeWatcher.stop();
+        synchronized (applyLock) {
+            closed = true;
+            try {
+                indexer.commit();
+            } catch (IOException e) {
+                logger.severe("Failed to commit synced changes: " + e.getMessage());
+            }
+        }
+    }
+
+    private void applyChanges(List<WatchResult> batch) {
+        synchronized (applyLock) {
+            if (closed) {
+                logger.info("Dropped " + batch.size() + " changes detected after live sync stopped");
+                return;
+            }
+            apply(batch);
+        }
+    }
+
+    private void apply(List<WatchResult> batch) {
+        List<WatchResult> applied = new ArrayList<>(batch.size());
+        for (WatchResult change : batch) {
+            Path path = Paths.get(change.getFilePath());
+            try {
+                // The file may have gone again since its event was coalesced
+                if (StandardWatchEventKinds.ENTRY_DELETE.name().equals(change.getEventType())
+                        || !Files.isRegularFile(path)) {
+                    indexer.deletePath(path);
+                } else {
+                    indexer.indexFile(path);
                 }
-                key.reset();
+                applied.add(change);
+            } catch (IOException | RuntimeException e) {
+                logger.warning("Failed to sync " + path + ": " + e.getMessage());
+            }
+        }
+        try {
+            indexer.commitIfDue();
+            if (searcher != null) {
+                searcher.refresh();
             }
-        } catch (InterruptedException | IOException e) {
-            logger.severe("Error in FileWatcher: " + e.getMessage());
+        } catch (IOException e) {
+            logger.severe("Failed to publish synced changes: " + e.getMessage());
+        }
+        logger.info("Synced " + applied.size() + " of " + batch.size() + " changes");
+        if (!applied.isEmpty()) {
+            outputExecutor.execute(() -> outputFunc.accept(applied));
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,98 @@
+package com.lucene.searcher;
+
+import com.lucene.indexer.IndexFields;
+import org.apache.lucene.document.KeywordField;
+import org.apache.lucene.document.LongField;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.util.BytesRef;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SearchFilterTest {
+
+    private static final Query QUERY = new TermQuery(new Term(IndexFields.CONTENT, "lucene"));
+    private static final Path SOURCE = Paths.get("/projects/app").toAbsolutePath();
+
+    @Test
+    void emptyFilterLeavesQueryUnchanged() {
+        assertTrue(SearchFilter.NONE.isEmpty());
+        assertSame(QUERY, SearchFilter.NONE.apply(QUERY));
+    }
+
+    @Test
+    void extensionsAreNormalizedIntoOneSetQuery() {
+        SearchFilter filter = new SearchFilter.Builder().extensions(".Java", " md ", "", "JAVA").build();
+
+        Query expected = new BooleanQuery.Builder()
+                .add(QUERY, BooleanClause.Occur.MUST)
+                .add(KeywordField.newSetQuery(IndexFields.EXTENSION, List.of(new BytesRef("java"), new BytesRef("md"))),
+                        BooleanClause.Occur.FILTER)
+                .build();
+        assertFalse(filter.isEmpty());
+        assertEquals(expected, filter.apply(QUERY));
+    }
+
+    @Test
+    void relativeFolderResolvesAgainstSourceDirectory() {
+        SearchFilter filter = new SearchFilter.Builder().under(SOURCE.toString(), "src/../src/main").build();
+
+        assertEquals(filtered(new TermQuery(new Term(IndexFields.FOLDER, SOURCE.resolve("src/main").toString()))),
+                filter.apply(QUERY));
+    }
+
+    @Test
+    void absoluteFolderIsKept() {
+        String folder = Paths.get("/elsewhere/docs").toAbsolutePath().toString();
+        SearchFilter filter = new SearchFilter.Builder().under(SOURCE.toString(), folder).build();
+
+        assertEquals(filtered(new TermQuery(new Term(IndexFields.FOLDER, folder))), filter.apply(QUERY));
+    }
+
+    @Test
+    void sizeAndModifiedTimeBecomePointRanges() {
+        Instant after = Instant.parse("2024-01-01T00:00:00Z");
+        Instant before = Instant.parse("2024-06-30T00:00:00Z");
+        SearchFilter filter = new SearchFilter.Builder()
+                .size(100, 2000)
+                .modifiedAfter(after)
+                .modifiedBefore(before)
+                .build();
+
+        Query expected = new BooleanQuery.Builder()
+                .add(QUERY, BooleanClause.Occur.MUST)
+                .add(LongField.newRangeQuery(IndexFields.SIZE, 100, 2000), BooleanClause.Occur.FILTER)
+                .add(LongField.newRangeQuery(IndexFields.MODIFIED, after.toEpochMilli(), before.toEpochMilli()),
+                        BooleanClause.Occur.FILTER)
+                .build();
+        assertEquals(expected, filter.apply(QUERY));
+    }
+
+    @Test
+    void openEndedModifiedRangeKeepsTheOtherBound() {
+        Instant after = Instant.parse("2024-01-01T00:00:00Z");
+        SearchFilter filter = new SearchFilter.Builder().modifiedAfter(after).build();
+
+        assertEquals(filtered(LongField.newRangeQuery(IndexFields.MODIFIED, after.toEpochMilli(), Long.MAX_VALUE)),
+                filter.apply(QUERY));
+    }
+
+    private static Query filtered(Query filter) {
+        return new BooleanQuery.Builder()
+                .add(QUERY, BooleanClause.Occur.MUST)
+                .add(filter, BooleanClause.Occur.FILTER)
+                .build();
+    }
+}
@@ -0,0 +1,97 @@
+package com.lucene.searcher;
+
+import com.lucene.indexer.IndexFields;
+import com.lucene.indexer.Indexer;
+import com.lucene.model.WatchResult;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SearchSortTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void fromNameIgnoresCaseAndWhitespace() {
+        assertEquals(SearchSort.NEWEST, SearchSort.fromName(" Newest "));
+        assertEquals(SearchSort.RELEVANCE, SearchSort.fromName("relevance"));
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> SearchSort.fromName("oldest-first"));
+        assertEquals("Unknown sort: oldest-first", e.getMessage());
+    }
+
+    @Test
+    void relevanceUsesTheDefaultScoreOrder() {
+        assertNull(SearchSort.RELEVANCE.getSort());
+    }
+
+    @Test
+    void fieldSortsBreakTiesByScore() {
+        SortField[] fields = SearchSort.LARGEST.getSort().getSort();
+
+        assertEquals(2, fields.length);
+        assertEquals(IndexFields.SIZE, fields[0].getField());
+        assertTrue(fields[0].getReverse());
+        assertEquals(SortField.FIELD_SCORE, fields[1]);
+        assertEquals(IndexFields.MODIFIED, SearchSort.OLDEST.getSort().getSort()[0].getField());
+    }
+
+    @Test
+    void ordersAndFiltersIndexedFiles() throws Exception {
+        Path src = Files.createDirectory(tempDir.resolve("src"));
+        write(src.resolve("small.java"), "needle", "2024-03-01T00:00:00Z");
+        write(src.resolve("large.java"), "needle " + "padding ".repeat(100), "2024-01-01T00:00:00Z");
+        write(src.resolve("notes.md"), "needle needle", "2024-02-01T00:00:00Z");
+        Path docs = Files.createDirectory(tempDir.resolve("docs"));
+        write(docs.resolve("guide.md"), "needle guide", "2024-04-01T00:00:00Z");
+
+        try (Directory directory = new ByteBuffersDirectory()) {
+            Indexer indexer = new Indexer(directory);
+            try {
+                indexer.indexDirectory(tempDir.toString(), "all");
+            } finally {
+                indexer.close();
+            }
+            Searcher searcher = new Searcher(directory);
+            try {
+                assertEquals(List.of("guide.md", "small.java", "notes.md", "large.java"),
+                        names(searcher, SearchFilter.NONE, SearchSort.NEWEST));
+                assertEquals(List.of("large.java", "small.java"), names(searcher,
+                        new SearchFilter.Builder().extensions("java").build(), SearchSort.LARGEST));
+                assertEquals(List.of("large.java", "notes.md", "small.java"), names(searcher,
+                        new SearchFilter.Builder().under(tempDir.toString(), "src").build(), SearchSort.OLDEST));
+                assertEquals(List.of("guide.md"), names(searcher, new SearchFilter.Builder()
+                        .extensions("md")
+                        .modifiedAfter(Instant.parse("2024-03-15T00:00:00Z"))
+                        .build(), SearchSort.RELEVANCE));
+            } finally {
+                searcher.close();
+            }
+        }
+    }
+
+    private static void write(Path file, String content, String modified) throws Exception {
+        Files.writeString(file, content);
+        Files.setLastModifiedTime(file, FileTime.from(Instant.parse(modified)));
+    }
+
+    private static List<String> names(Searcher searcher, SearchFilter filter, SearchSort sort) throws Exception {
+        return searcher.searchPage("needle", filter, sort, 10, SnippetMode.NONE).getResults().stream()
+                .map(WatchResult::getFileName)
+                .toList();
+    }
+}
@@ -0,0 +1,169 @@
+package com.lucene.searcher;
+
+import com.lucene.indexer.Indexer;
+import org.apache.lucene.store.AlreadyClosedException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SearcherPoolTest {
+
+    @TempDir
+    Path tempDir;
+
+    private String first;
+    private String second;
+    private SearcherPool pool;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        first = indexedDirectory("first", "apple");
+        second = indexedDirectory("second", "banana");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (pool != null) {
+            pool.close();
+        }
+    }
+
+    @Test
+    void acquireSharesOneSearcherPerDirectory() throws Exception {
+        pool = new SearcherPool(2);
+
+        Searcher searcher = pool.acquire(first);
+        Searcher again = pool.acquire(first);
+
+        assertSame(searcher, again);
+        assertTrue(pool.isOpen(first));
+        assertEquals(1, searcher.search("apple", 10).size());
+        pool.release(again);
+        pool.release(searcher);
+        assertTrue(pool.isOpen(first));
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedIdleSearcherBeyondCapacity() throws Exception {
+        pool = new SearcherPool(1);
+        Searcher evicted = pool.acquire(first);
+        pool.release(evicted);
+
+        pool.release(pool.acquire(second));
+
+        assertFalse(pool.isOpen(first));
+        assertTrue(pool.isOpen(second));
+        assertClosed(evicted);
+    }
+
+    @Test
+    void keepsSearchersInUseUntilTheirLastRelease() throws Exception {
+        pool = new SearcherPool(1);
+        Searcher held = pool.acquire(first);
+        Searcher other = pool.acquire(second);
+
+        assertTrue(pool.isOpen(first));
+        assertEquals(1, held.search("apple", 10).size());
+
+        pool.release(held);
+        assertFalse(pool.isOpen(first));
+        assertClosed(held);
+        pool.release(other);
+        assertTrue(pool.isOpen(second));
+    }
+
+    @Test
+    void invalidateClosesIdleSearcher() throws Exception {
+        pool = new SearcherPool(2);
+        Searcher stale = pool.acquire(first);
+        pool.release(stale);
+
+        pool.invalidate(first);
+
+        assertFalse(pool.isOpen(first));
+        assertClosed(stale);
+        Searcher reopened = pool.acquire(first);
+        assertNotSame(stale, reopened);
+        assertEquals(1, reopened.search("apple", 10).size());
+        pool.release(reopened);
+    }
+
+    @Test
+    void invalidateDefersCloseOfSearcherInUse() throws Exception {
+        pool = new SearcherPool(2);
+        Searcher stale = pool.acquire(first);
+
+        pool.invalidate(first);
+        Searcher reopened = pool.acquire(first);
+
+        assertNotSame(stale, reopened);
+        assertEquals(1, stale.search("apple", 10).size());
+        pool.release(stale);
+        assertClosed(stale);
+        assertTrue(pool.isOpen(first));
+        assertEquals(1, reopened.search("apple", 10).size());
+        pool.release(reopened);
+    }
+
+    @Test
+    void rejectsSearchersFromElsewhere() throws Exception {
+        pool = new SearcherPool(2);
+        Searcher outsider = new Searcher(first);
+        try {
+            assertThrows(IllegalArgumentException.class, () -> pool.release(outsider));
+        } finally {
+            outsider.close();
+        }
+    }
+
+    @Test
+    void closedPoolRefusesAcquire() throws Exception {
+        pool = new SearcherPool(2);
+        Searcher searcher = pool.acquire(first);
+
+        pool.close();
+
+        assertClosed(searcher);
+        assertThrows(IllegalStateException.class, () -> pool.acquire(first));
+    }
+
+    @Test
+    void releaseAfterCloseIsIgnored() throws Exception {
+        pool = new SearcherPool(2);
+        Searcher searcher = pool.acquire(first);
+
+        pool.close();
+        pool.release(searcher);
+
+        assertClosed(searcher);
+    }
+
+    private String indexedDirectory(String name, String word) throws IOException {
+        Path directory = Files.createDirectory(tempDir.resolve(name));
+        Files.writeString(directory.resolve(name + ".txt"), word);
+        Indexer indexer = new Indexer(directory.toString());
+        try {
+            indexer.indexDirectory(directory.toString(), "all");
+        } finally {
+            indexer.close();
+        }
+        return directory.toString();
+    }
+
+    private static void assertClosed(Searcher searcher) {
+        // Each query is new so no cached result can answer it without the closed reader
+        assertThrows(AlreadyClosedException.class, () -> searcher.search("closed" + System.nanoTime(), 10));
+    }
+}
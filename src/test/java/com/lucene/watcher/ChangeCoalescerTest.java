@@ -0,0 +1,136 @@
+package com.lucene.watcher;
+
+import com.lucene.model.WatchResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChangeCoalescerTest {
+
+    private static final Path A = Paths.get("/watched/a.txt").toAbsolutePath();
+    private static final Path B = Paths.get("/watched/b.txt").toAbsolutePath();
+
+    private final List<List<WatchResult>> batches = new ArrayList<>();
+    private ChangeCoalescer coalescer;
+
+    @BeforeEach
+    void setUp() {
+        // Long enough that the background flusher never emits during a test
+        coalescer = new ChangeCoalescer(Duration.ofMinutes(1), batch -> {
+            synchronized (batches) {
+                batches.add(batch);
+            }
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        coalescer.close();
+    }
+
+    @Test
+    void mergeRules() {
+        assertEquals(ENTRY_CREATE, ChangeCoalescer.merge(ENTRY_CREATE, ENTRY_MODIFY));
+        assertNull(ChangeCoalescer.merge(ENTRY_CREATE, ENTRY_DELETE));
+        assertEquals(ENTRY_MODIFY, ChangeCoalescer.merge(ENTRY_DELETE, ENTRY_CREATE));
+        assertEquals(ENTRY_MODIFY, ChangeCoalescer.merge(ENTRY_MODIFY, ENTRY_MODIFY));
+        assertEquals(ENTRY_DELETE, ChangeCoalescer.merge(ENTRY_MODIFY, ENTRY_DELETE));
+        assertEquals(ENTRY_DELETE, ChangeCoalescer.merge(ENTRY_DELETE, ENTRY_DELETE));
+    }
+
+    @Test
+    void createThenModifyIsReportedAsCreate() {
+        coalescer.add(ENTRY_CREATE, A);
+        coalescer.add(ENTRY_MODIFY, A);
+        coalescer.add(ENTRY_MODIFY, A);
+
+        coalescer.flush(true);
+
+        assertEquals(List.of("ENTRY_CREATE " + A), flushed());
+    }
+
+    @Test
+    void createThenDeleteCancelsOut() {
+        coalescer.add(ENTRY_CREATE, A);
+        coalescer.add(ENTRY_MODIFY, A);
+        coalescer.add(ENTRY_DELETE, A);
+
+        assertEquals(0, coalescer.pendingCount());
+        coalescer.flush(true);
+        assertTrue(batches.isEmpty());
+    }
+
+    @Test
+    void deleteThenCreateIsReportedAsModify() {
+        coalescer.add(ENTRY_DELETE, A);
+        coalescer.add(ENTRY_CREATE, A);
+
+        coalescer.flush(true);
+
+        assertEquals(List.of("ENTRY_MODIFY " + A), flushed());
+    }
+
+    @Test
+    void deleteWinsOverEarlierModify() {
+        coalescer.add(ENTRY_MODIFY, A);
+        coalescer.add(ENTRY_DELETE, A);
+
+        coalescer.flush(true);
+
+        assertEquals(List.of("ENTRY_DELETE " + A), flushed());
+    }
+
+    @Test
+    void emitsOneChangePerPathInOrderFirstSeen() {
+        coalescer.add(ENTRY_MODIFY, B);
+        coalescer.add(ENTRY_CREATE, A);
+        coalescer.add(ENTRY_MODIFY, B);
+
+        assertEquals(2, coalescer.pendingCount());
+        coalescer.flush(true);
+
+        assertEquals(1, batches.size());
+        assertEquals(List.of("ENTRY_MODIFY " + B, "ENTRY_CREATE " + A), flushed());
+    }
+
+    @Test
+    void unsettledChangesWaitForTheQuietPeriod() {
+        coalescer.add(ENTRY_MODIFY, A);
+
+        coalescer.flush(false);
+
+        assertTrue(batches.isEmpty());
+        assertEquals(1, coalescer.pendingCount());
+    }
+
+    @Test
+    void closeEmitsPendingChanges() {
+        coalescer.add(ENTRY_MODIFY, A);
+
+        coalescer.close();
+
+        assertEquals(List.of("ENTRY_MODIFY " + A), flushed());
+    }
+
+    private List<String> flushed() {
+        synchronized (batches) {
+            return batches.stream()
+                    .flatMap(List::stream)
+                    .map(result -> result.getEventType() + " " + result.getFilePath())
+                    .toList();
+        }
+    }
+}